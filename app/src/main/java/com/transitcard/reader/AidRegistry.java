@@ -0,0 +1,213 @@
+package com.transitcard.reader;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AidRegistry - AID / FCI 시그니처 → 카드 종류 / 파서 테이블
+ *
+ * 역할:
+ * - 카드 감지 시 SELECT할 AID 목록과 각 AID가 어떤 CardType인지 정의
+ * - 하나의 AID를 여러 카드가 공유하는 경우(KFTC) FCI 안의 AID로 구분
+ * - CardType별 파서 (상태 없는 파서 하나를 모든 세션이 공유)
+ *
+ * 탐색 순서:
+ * - AID별 감지 성공 횟수를 SharedPreferences에 저장
+ * - 해당 설치 환경에서 자주 감지되는 카드의 AID를 먼저 SELECT
+ *   → 평균 SELECT 횟수가 1회에 가까워짐
+ * - 한 카드에 함께 있을 수 있는 AID끼리는 등록 순서 유지 (먼저 응답한 AID가 카드 종류를 정하므로)
+ *   → 순서를 바꿔도 감지 결과가 같은, 서로 다른 카드의 AID끼리만 횟수로 정렬
+ * - 횟수가 MAX_HITS에 닿으면 모두 절반으로 줄임 → 최근 감지에 더 큰 비중, 환경이 바뀌면 순서도 따라 바뀜
+ */
+public class AidRegistry {
+    private static final String TAG = "AidRegistry";
+
+    private static final String PREFS_NAME = "aid_registry_hits";
+    private static final int MAX_HITS = 32;
+
+    /**
+     * FCI 응답의 4F 태그(AID)로 카드 종류를 구분하기 위한 시그니처
+     */
+    public static class FciSignature {
+        public final byte[] aidInFci;
+        public final CardType cardType;
+
+        public FciSignature(byte[] aidInFci, CardType cardType) {
+            this.aidInFci = aidInFci;
+            this.cardType = cardType;
+        }
+    }
+
+    /**
+     * SELECT할 AID 항목
+     */
+    public static class AidEntry {
+        public final String name;
+        public final byte[] aid;
+        public final CardType cardType;          // FCI 시그니처가 맞지 않을 때 기본값
+        public final FciSignature[] signatures;
+        private final int order;                 // 등록 순서 (횟수 동률 / 함께 있을 수 있는 AID끼리 사용)
+        private final List<AidEntry> coexisting = new ArrayList<>();
+        private int hits;
+
+        AidEntry(String name, byte[] aid, CardType cardType, FciSignature[] signatures, int order) {
+            this.name = name;
+            this.aid = aid;
+            this.cardType = cardType;
+            this.signatures = signatures;
+            this.order = order;
+        }
+
+        public int getHits() {
+            return hits;
+        }
+
+        boolean coexistsWith(AidEntry other) {
+            return coexisting.contains(other);
+        }
+    }
+
+    private final SharedPreferences prefs;
+    private final List<AidEntry> entries = new ArrayList<>();
+    private final Map<CardType, CardParser> parsers = new EnumMap<>(CardType.class);
+
+    public AidRegistry(Context context) {
+        this.prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        registerDefaults();
+    }
+
+    private void registerDefaults() {
+        // T-Money
+        register("T-Money", new byte[]{(byte) 0xD4, 0x10, 0x00, 0x00, 0x03, 0x00, 0x01},
+                CardType.TMONEY);
+
+        // KFTC (EZL 또는 하이패스) - FCI의 AID로 구분, 구분 실패 시 EZL
+        register("KFTC", new byte[]{(byte) 0xA0, 0x00, 0x00, 0x04, 0x52, 0x00, 0x01},
+                CardType.EZL,
+                new FciSignature(new byte[]{(byte) 0xA0, 0x00, 0x00, 0x02, 0x45, 0x00, 0x01},
+                        CardType.HIPASS),
+                new FciSignature(new byte[]{(byte) 0xD4, 0x10, 0x00, 0x00, 0x14, 0x00, 0x01},
+                        CardType.EZL));
+
+        // 추가 EZL AID
+        register("EZL-Alt1", new byte[]{(byte) 0xD4, 0x10, 0x00, 0x00, 0x03, 0x00, 0x05},
+                CardType.EZL);
+        register("EZL-Alt2", new byte[]{(byte) 0xD4, 0x10, 0x00, 0x00, 0x03, 0x00, 0x06},
+                CardType.EZL);
+
+        // 한 카드에 함께 있을 수 있는 AID (은행 겸용 티머니 / 캐시비는 KFTC AID도 응답)
+        markCoexisting("T-Money", "KFTC");
+        markCoexisting("KFTC", "EZL-Alt1", "EZL-Alt2");
+
+        registerParser(CardType.TMONEY, new TMoneyParser());
+        registerParser(CardType.EZL, new EZLParser());
+        registerParser(CardType.HIPASS, new HipassParser());
+        // 한페이 / 레일플러스는 감지 AID를 모름 - 파서만 등록 (확인된 AID / FCI 시그니처가 생기면 register)
+        // → 그 전까지 HistoryStrategyCache (발급사별 거래내역 읽기 방법) 는 사용되지 않음
+        registerParser(CardType.HANPAY, new HanpayParser());
+        registerParser(CardType.RAILPLUS, new RailplusParser());
+    }
+
+    public synchronized void register(String name, byte[] aid, CardType cardType, FciSignature... signatures) {
+        AidEntry entry = new AidEntry(name, aid, cardType, signatures, entries.size());
+        entry.hits = Math.min(prefs.getInt(name, 0), MAX_HITS);  // 이전 버전은 상한 없이 저장
+        entries.add(entry);
+    }
+
+    /**
+     * 한 카드에 함께 있을 수 있는 AID들 - 탐색 순서에서 서로의 등록 순서를 바꾸지 않음
+     */
+    public synchronized void markCoexisting(String... names) {
+        List<AidEntry> group = new ArrayList<>();
+        for (String name : names) {
+            for (AidEntry entry : entries) {
+                if (entry.name.equals(name)) group.add(entry);
+            }
+        }
+        for (AidEntry entry : group) {
+            for (AidEntry other : group) {
+                if (other != entry && !entry.coexisting.contains(other)) {
+                    entry.coexisting.add(other);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param parser 상태를 가지지 않는 파서 (세션별 값은 CardSession에 둠)
+     */
+    public synchronized void registerParser(CardType cardType, CardParser parser) {
+        parsers.put(cardType, parser);
+    }
+
+    /**
+     * 탐색 순서 (감지 횟수 많은 순, 동률이면 등록 순)
+     *
+     * 함께 있을 수 있는 AID 중 먼저 등록된 AID가 남아 있으면 그 뒤로 보냄
+     * → 여러 AID에 응답하는 카드는 횟수와 상관없이 항상 같은 카드 종류로 감지
+     */
+    public synchronized List<AidEntry> getProbeOrder() {
+        List<AidEntry> remaining = new ArrayList<>(entries);  // 등록 순
+        List<AidEntry> order = new ArrayList<>(entries.size());
+        while (!remaining.isEmpty()) {
+            AidEntry next = null;
+            for (AidEntry candidate : remaining) {
+                if (!isReady(candidate, remaining)) continue;
+                if (next == null || candidate.hits > next.hits) next = candidate;
+            }
+            remaining.remove(next);
+            order.add(next);
+        }
+        return order;
+    }
+
+    private static boolean isReady(AidEntry entry, List<AidEntry> remaining) {
+        for (AidEntry other : remaining) {
+            if (other.order < entry.order && entry.coexistsWith(other)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 감지 성공 기록 (다음 탐색 순서에 반영)
+     */
+    public synchronized void recordHit(AidEntry entry) {
+        entry.hits++;
+        SharedPreferences.Editor editor = prefs.edit();
+        if (entry.hits >= MAX_HITS) {
+            // 모두 절반으로 (비율은 유지, 오래된 감지의 비중만 줄어듦)
+            for (AidEntry e : entries) {
+                e.hits /= 2;
+                editor.putInt(e.name, e.hits);
+            }
+        } else {
+            editor.putInt(entry.name, entry.hits);
+        }
+        editor.apply();
+        ReaderLog.d(TAG, () -> entry.name + " hits: " + entry.hits);
+    }
+
+    /**
+     * 감지용으로 등록된 AID인지 (CardTypeCache에는 감지 AID만 저장 - 파서는 감지 AID의 FCI를 사용)
+     */
+    public synchronized boolean isProbeAid(byte[] aid) {
+        for (AidEntry entry : entries) {
+            if (Arrays.equals(entry.aid, aid)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * CardType에 맞는 파서 (등록되지 않았으면 null) - 여러 세션에서 동시에 사용 가능
+     */
+    public synchronized CardParser getParser(CardType cardType) {
+        return parsers.get(cardType);
+    }
+}
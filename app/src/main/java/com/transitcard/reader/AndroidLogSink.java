@@ -0,0 +1,30 @@
+package com.transitcard.reader;
+
+import android.util.Log;
+
+/**
+ * AndroidLogSink - ReaderLog를 logcat (android.util.Log) 으로 출력
+ */
+public class AndroidLogSink implements ReaderLog.Sink {
+    private final int minLevel;
+
+    /**
+     * @param minLevel 이 레벨 이상만 출력 (ReaderLog.DEBUG 등)
+     */
+    public AndroidLogSink(int minLevel) {
+        this.minLevel = minLevel;
+    }
+
+    @Override
+    public boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    @Override
+    public void log(int level, String tag, String message, Throwable tr) {
+        if (tr != null) {
+            message = message + '\n' + Log.getStackTraceString(tr);
+        }
+        Log.println(level, tag, message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.transitcard.reader;
+
+import java.io.IOException;
+
+/**
+ * ApduChannel - 카드와 APDU를 주고받는 전송 계층
+ *
+ * 모든 CardParser는 IsoDep을 직접 사용하지 않고 이 인터페이스를 통해 통신함
+ * - 61xx (GET RESPONSE), 6Cxx (Le 재전송) 처리는 구현체가 담당
+ * - 파서는 항상 최종 응답 (데이터 + SW) 만 받음
+ */
+public interface ApduChannel {
+    byte[] transceive(byte[] command) throws IOException;
+
+    /**
+     * 단말 / 카드 읽기 능력 (확장 길이, 최대 전송 길이, 다중 레코드 읽기)
+     */
+    ReadCapabilities getCapabilities();
+}
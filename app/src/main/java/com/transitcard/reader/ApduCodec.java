@@ -0,0 +1,239 @@
+package com.transitcard.reader;
+
+/**
+ * ApduCodec - 파서들이 공통으로 쓰는 APDU 응답 디코딩 / 명령 생성
+ *
+ * - 상태 워드 / 정수 / BCD 디코딩은 객체를 만들지 않음
+ * - 카드번호는 16자리 BCD를 long으로 디코딩하고, 화면에 쓸 문자열은 formatCardNumber()로 한 번만 만듦
+ * - hex 문자열은 표 (HEX) 로 변환 (String.format 사용 안 함)
+ */
+public final class ApduCodec {
+    public static final int SW_SUCCESS = 0x9000;
+
+    // 카드번호 디코딩 실패 (BCD가 아니거나 16자리가 안 됨)
+    public static final long INVALID_CARD_NUMBER = -1L;
+
+    private static final int CARD_NUMBER_DIGITS = 16;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private ApduCodec() {
+    }
+
+    // ===== 상태 워드 =====
+
+    /**
+     * @return SW1SW2 (예: 0x9000), 응답이 2바이트 미만이면 -1
+     */
+    public static int sw(byte[] response) {
+        if (response == null || response.length < 2) return -1;
+        return ((response[response.length - 2] & 0xFF) << 8) | (response[response.length - 1] & 0xFF);
+    }
+
+    /**
+     * @return SW1, 응답이 2바이트 미만이면 -1
+     */
+    public static int sw1(byte[] response) {
+        if (response == null || response.length < 2) return -1;
+        return response[response.length - 2] & 0xFF;
+    }
+
+    public static boolean isSuccess(byte[] response) {
+        return sw(response) == SW_SUCCESS;
+    }
+
+    /**
+     * 데이터가 모두 00 / FF 인지 (기록되지 않은 레코드)
+     */
+    public static boolean isBlank(byte[] data, int offset, int len) {
+        for (int i = offset; i < offset + len; i++) {
+            if (data[i] != 0 && data[i] != (byte) 0xFF) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 응답 (데이터 + SW) 의 데이터 부분 전체가 비어 있는지
+     */
+    public static boolean isBlankRecord(byte[] response) {
+        return response.length < 2 || isBlank(response, 0, response.length - 2);
+    }
+
+    // ===== 명령 =====
+
+    /**
+     * SELECT by DF name: 00 A4 04 00 Lc AID 00
+     */
+    public static byte[] selectByName(byte[] aid) {
+        byte[] command = new byte[6 + aid.length];
+        command[0] = 0x00;              // CLA
+        command[1] = (byte) 0xA4;       // INS (SELECT)
+        command[2] = 0x04;              // P1
+        command[3] = 0x00;              // P2
+        command[4] = (byte) aid.length; // Lc
+        System.arraycopy(aid, 0, command, 5, aid.length);
+        command[command.length - 1] = 0x00; // Le
+        return command;
+    }
+
+    // ===== 정수 (Big Endian) =====
+
+    public static int getInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) |
+                ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    public static int getUnsignedShort(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    // ===== BCD =====
+
+    /**
+     * BCD 1바이트 → 0-99 (nibble 검사 없음)
+     */
+    public static int bcdToInt(byte b) {
+        return ((b >> 4) & 0x0F) * 10 + (b & 0x0F);
+    }
+
+    /**
+     * len 바이트 모두 BCD여야 하는 카드번호 (FCI offset 8, 하이패스 CARDINFO 등)
+     *
+     * @return 앞 16자리, nibble 중 하나라도 0-9가 아니거나 16자리가 안 되면 INVALID_CARD_NUMBER
+     */
+    public static long decodeBcdCardNumber(byte[] data, int offset, int len) {
+        if (offset < 0 || offset + len > data.length || len * 2 < CARD_NUMBER_DIGITS) {
+            return INVALID_CARD_NUMBER;
+        }
+        long value = 0;
+        int digits = 0;
+        for (int i = offset; i < offset + len; i++) {
+            int high = (data[i] >> 4) & 0x0F;
+            int low = data[i] & 0x0F;
+            if (high > 9 || low > 9) return INVALID_CARD_NUMBER;
+            if (digits < CARD_NUMBER_DIGITS) {
+                value = value * 100 + high * 10 + low;
+                digits += 2;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 5A (PAN) 태그 값 - 0-9가 아닌 nibble (F 패딩 등) 은 건너뜀
+     */
+    public static long decodePanCardNumber(byte[] data, int offset, int len) {
+        return decodeDigits(data, offset, len, false);
+    }
+
+    /**
+     * 57 (Track 2) 태그 값 - 구분자 D 또는 패딩 F에서 멈춤
+     */
+    public static long decodeTrack2CardNumber(byte[] data, int offset, int len) {
+        return decodeDigits(data, offset, len, true);
+    }
+
+    /**
+     * 유효한 카드번호인지 (디코딩 성공 + 모두 0이 아님)
+     */
+    public static boolean isValidCardNumber(long cardNumber) {
+        return cardNumber > 0;
+    }
+
+    /**
+     * 16자리 카드번호 → "1234 5678 9012 3456"
+     */
+    public static String formatCardNumber(long cardNumber) {
+        char[] chars = new char[CARD_NUMBER_DIGITS + 3];
+        long value = cardNumber;
+        int pos = chars.length - 1;
+        for (int digit = 0; digit < CARD_NUMBER_DIGITS; digit++) {
+            if (digit > 0 && digit % 4 == 0) {
+                chars[pos--] = ' ';
+            }
+            chars[pos--] = (char) ('0' + (int) (value % 10));
+            value /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * BCD YY MM DD HH (4바이트) → "YY/MM/DD HH:00", 날짜가 아니면 ""
+     */
+    public static String parseBcdDate(byte[] data, int offset) {
+        if (offset + 4 > data.length) return "";
+        int yy = bcdToInt(data[offset]);
+        int mm = bcdToInt(data[offset + 1]);
+        int dd = bcdToInt(data[offset + 2]);
+        int hh = bcdToInt(data[offset + 3]);
+        if (mm < 1 || mm > 12 || dd < 1 || dd > 31 || hh > 23) return "";
+
+        char[] chars = {0, 0, '/', 0, 0, '/', 0, 0, ' ', 0, 0, ':', '0', '0'};
+        putTwoDigits(chars, 0, yy);
+        putTwoDigits(chars, 3, mm);
+        putTwoDigits(chars, 6, dd);
+        putTwoDigits(chars, 9, hh);
+        return new String(chars);
+    }
+
+    // ===== hex =====
+
+    public static String toHex(byte[] data) {
+        if (data == null) return "";
+        return toHex(data, 0, data.length);
+    }
+
+    public static String toHex(byte[] data, int offset, int len) {
+        char[] chars = new char[len * 2];
+        for (int i = 0; i < len; i++) {
+            int b = data[offset + i];
+            chars[i * 2] = HEX[(b >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX[b & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return hex 문자열이 아니면 null
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) return null;
+        byte[] result = new byte[hex.length() / 2];
+        for (int i = 0; i < result.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) return null;
+            result[i] = (byte) ((high << 4) | low);
+        }
+        return result;
+    }
+
+    // ===== 내부 =====
+
+    private static long decodeDigits(byte[] data, int offset, int len, boolean stopAtSeparator) {
+        long value = 0;
+        int digits = 0;
+        int end = Math.min(offset + len, data.length);
+        for (int i = offset; i < end && digits < CARD_NUMBER_DIGITS; i++) {
+            int high = (data[i] >> 4) & 0x0F;
+            if (stopAtSeparator && (high == 0x0D || high == 0x0F)) break;
+            if (high <= 9) {
+                value = value * 10 + high;
+                digits++;
+            }
+            if (digits == CARD_NUMBER_DIGITS) break;
+
+            int low = data[i] & 0x0F;
+            if (stopAtSeparator && (low == 0x0D || low == 0x0F)) break;
+            if (low <= 9) {
+                value = value * 10 + low;
+                digits++;
+            }
+        }
+        return digits == CARD_NUMBER_DIGITS ? value : INVALID_CARD_NUMBER;
+    }
+
+    private static void putTwoDigits(char[] chars, int pos, int value) {
+        chars[pos] = (char) ('0' + value / 10 % 10);
+        chars[pos + 1] = (char) ('0' + value % 10);
+    }
+}
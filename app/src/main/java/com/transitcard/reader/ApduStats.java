@@ -0,0 +1,87 @@
+package com.transitcard.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ApduStats - 세션 동안 주고받은 APDU별 소요 시간 / 바이트 수 기록
+ */
+public class ApduStats {
+
+    /**
+     * APDU 1회 기록
+     */
+    public static class Record {
+        public final int cla;
+        public final int ins;
+        public final int p1;
+        public final int p2;
+        public final int bytesSent;
+        public final int bytesReceived;
+        public final long nanos;
+        public final int sw;
+
+        Record(byte[] command, int bytesReceived, long nanos, int sw) {
+            this.cla = command.length > 0 ? command[0] & 0xFF : 0;
+            this.ins = command.length > 1 ? command[1] & 0xFF : 0;
+            this.p1 = command.length > 2 ? command[2] & 0xFF : 0;
+            this.p2 = command.length > 3 ? command[3] & 0xFF : 0;
+            this.bytesSent = command.length;
+            this.bytesReceived = bytesReceived;
+            this.nanos = nanos;
+            this.sw = sw;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%02X %02X %02X %02X | SW=%04X | %dB→ %dB← | %.1fms",
+                    cla, ins, p1, p2, sw, bytesSent, bytesReceived, nanos / 1_000_000.0);
+        }
+    }
+
+    private final List<Record> records = new ArrayList<>();
+    private long firstApduStartNanos = 0;
+    private long totalNanos = 0;
+    private int totalSent = 0;
+    private int totalReceived = 0;
+
+    public synchronized Record record(byte[] command, byte[] response, long nanos) {
+        int received = response != null ? response.length : 0;
+        int sw = received >= 2
+                ? ((response[received - 2] & 0xFF) << 8) | (response[received - 1] & 0xFF)
+                : 0;
+        Record record = new Record(command, received, nanos, sw);
+        if (records.isEmpty()) {
+            firstApduStartNanos = System.nanoTime() - nanos;
+        }
+        records.add(record);
+        totalNanos += nanos;
+        totalSent += command.length;
+        totalReceived += received;
+        return record;
+    }
+
+    public synchronized List<Record> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    /**
+     * 첫 APDU 전송 시작 시각 (System.nanoTime 기준, 아직 없으면 0)
+     */
+    public synchronized long getFirstApduStartNanos() {
+        return firstApduStartNanos;
+    }
+
+    public synchronized int getCount() {
+        return records.size();
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized String getSummary() {
+        return String.format("%d APDUs | %.1fms | %dB sent | %dB received",
+                records.size(), totalNanos / 1_000_000.0, totalSent, totalReceived);
+    }
+}
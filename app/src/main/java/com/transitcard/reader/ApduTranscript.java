@@ -0,0 +1,214 @@
+package com.transitcard.reader;
+
+import android.nfc.TagLostException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ApduTranscript - 카드 세션 1회의 APDU 명령 / 응답 기록
+ *
+ * RecordingApduChannel로 실제 카드 세션을 기록하고,
+ * ReplayApduChannel로 기기 / 카드 없이 (일반 JVM) 파서를 다시 실행하는 데 사용.
+ *
+ * 파일 형식 (DataOutputStream, 빅엔디안):
+ *   int     MAGIC ("APDT")
+ *   byte    VERSION
+ *   UTF     카드 종류 (CardType.name)
+ *   bytes   카드 UID
+ *   bytes   감지 단계 FCI (없으면 길이 -1)
+ *   bytes   감지 단계 AID (없으면 길이 -1, VERSION 2부터)
+ *   boolean 확장 길이 APDU 지원
+ *   int     최대 전송 길이
+ *   int     교환 수
+ *   교환마다: bytes 명령, byte 결과 (0 응답 / 1 통신 오류 / 2 카드 떨어짐), [bytes 응답]
+ * bytes = int 길이 + 데이터
+ */
+public class ApduTranscript {
+    public static final String FILE_EXTENSION = ".apdu";
+
+    private static final int MAGIC = 0x41504454;  // "APDT"
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_AID = 1;  // 감지 AID 없음 - 읽기만 지원
+
+    static final int OUTCOME_RESPONSE = 0;
+    static final int OUTCOME_IO_ERROR = 1;
+    static final int OUTCOME_TAG_LOST = 2;
+
+    /**
+     * 명령 / 응답 1쌍
+     */
+    public static class Exchange {
+        public final byte[] command;
+        public final int outcome;
+        public final byte[] response;  // outcome이 OUTCOME_RESPONSE일 때만
+
+        Exchange(byte[] command, int outcome, byte[] response) {
+            this.command = command;
+            this.outcome = outcome;
+            this.response = response;
+        }
+    }
+
+    private final CardType cardType;
+    private final byte[] cardId;
+    private final byte[] aid;
+    private final byte[] fci;
+    private final boolean extendedLengthSupported;
+    private final int maxTransceiveLength;
+    private final List<Exchange> exchanges;
+
+    public ApduTranscript(CardType cardType, byte[] cardId, byte[] aid, byte[] fci,
+                          boolean extendedLengthSupported, int maxTransceiveLength,
+                          List<Exchange> exchanges) {
+        this.cardType = cardType;
+        this.cardId = cardId;
+        this.aid = aid;
+        this.fci = fci;
+        this.extendedLengthSupported = extendedLengthSupported;
+        this.maxTransceiveLength = maxTransceiveLength;
+        this.exchanges = new ArrayList<>(exchanges);
+    }
+
+    public CardType getCardType() {
+        return cardType;
+    }
+
+    public byte[] getCardId() {
+        return cardId;
+    }
+
+    /**
+     * 감지 단계에서 선택된 AID (VERSION 1 기록이면 null)
+     */
+    public byte[] getAid() {
+        return aid;
+    }
+
+    public byte[] getFci() {
+        return fci;
+    }
+
+    public boolean isExtendedLengthSupported() {
+        return extendedLengthSupported;
+    }
+
+    public int getMaxTransceiveLength() {
+        return maxTransceiveLength;
+    }
+
+    public List<Exchange> getExchanges() {
+        return Collections.unmodifiableList(exchanges);
+    }
+
+    /**
+     * 기록된 응답으로 파서 실행 (카드 / 기기 불필요)
+     *
+     * 실제 세션과 같이 감지 단계의 AID / FCI를 선택된 상태로 두고 시작
+     * → 파서가 선택된 애플릿을 보고 다시 SELECT를 생략하는 경로도 그대로 재현
+     */
+    public TransitCardData replay(CardParser parser) throws TagLostException {
+        ReplayApduChannel channel = new ReplayApduChannel(this);
+        CardSession session = new CardSession(channel, cardId, fci, null, new ReadProgress(cardType));
+        session.recordSelected(aid, fci);
+        return parser.parse(session);
+    }
+
+    // ===== 저장 / 불러오기 =====
+
+    public void writeTo(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            writeTo(out);
+        }
+    }
+
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(cardType.name());
+        writeBytes(out, cardId);
+        writeBytes(out, fci);
+        writeBytes(out, aid);
+        out.writeBoolean(extendedLengthSupported);
+        out.writeInt(maxTransceiveLength);
+        out.writeInt(exchanges.size());
+        for (Exchange exchange : exchanges) {
+            writeBytes(out, exchange.command);
+            out.writeByte(exchange.outcome);
+            if (exchange.outcome == OUTCOME_RESPONSE) {
+                writeBytes(out, exchange.response);
+            }
+        }
+        out.flush();
+    }
+
+    public static ApduTranscript readFrom(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return readFrom(in);
+        }
+    }
+
+    public static ApduTranscript readFrom(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an APDU transcript");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION && version != VERSION_WITHOUT_AID) {
+            throw new IOException("Unsupported transcript version: " + version);
+        }
+
+        CardType cardType;
+        try {
+            cardType = CardType.valueOf(in.readUTF());
+        } catch (IllegalArgumentException e) {
+            cardType = CardType.UNKNOWN;
+        }
+        byte[] cardId = readBytes(in);
+        byte[] fci = readBytes(in);
+        byte[] aid = version >= VERSION ? readBytes(in) : null;
+        boolean extendedLength = in.readBoolean();
+        int maxTransceive = in.readInt();
+
+        int count = in.readInt();
+        List<Exchange> exchanges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] command = readBytes(in);
+            int outcome = in.readUnsignedByte();
+            byte[] response = outcome == OUTCOME_RESPONSE ? readBytes(in) : null;
+            exchanges.add(new Exchange(command, outcome, response));
+        }
+        return new ApduTranscript(cardType, cardId, aid, fci, extendedLength, maxTransceive, exchanges);
+    }
+
+    // ===== 유틸리티 =====
+
+    private static void writeBytes(DataOutputStream out, byte[] data) throws IOException {
+        if (data == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return data;
+    }
+}
@@ -6,10 +6,20 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.transitcard.reader.Transaction;
 import com.transitcard.reader.TransactionTypeConverter;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * AppDatabase - Room Database 메인 클래스
  *
@@ -25,13 +35,22 @@ import com.transitcard.reader.TransactionTypeConverter;
  *
  * 데이터베이스 정보:
  * - 파일명: transit_card_database
- * - 버전: 1
+ * - 버전: 4
+ *   (1 → 2: 카드 중복 행 정리 + (카드번호, 카드종류) UNIQUE 인덱스)
+ *   (2 → 3: 거래 일련번호 컬럼 + 거래 중복 정리 + 거래 UNIQUE 인덱스)
+ *   (3 → 4: 거래 인덱스 cardId → (cardId, timestamp), 이용내역 페이지 조회용)
  * - 테이블: cards (카드 정보), transactions (거래 내역)
  * - 저장 위치: /data/data/com.transitcard.reader/databases/transit_card_database
+ * - 저널: WAL (쓰기 중에도 다른 연결에서 읽기 가능)
+ *
+ * 스레드:
+ * - 읽기 (getQueryExecutor): db-query-N, R.integer.db_query_threads 개 - LiveData 조회 / 일회성 조회
+ * - 쓰기 (getTransactionExecutor): db-write 1개 - 스캔 저장 / 삭제를 순서대로
+ * - 앱의 DB 작업은 모두 이 두 실행기에서 (new Thread / 따로 만든 스레드 사용 안 함)
  */
 @Database(
         entities = {CardEntity.class, Transaction.class},  // 포함할 Entity(테이블) 리스트
-        version = 1,                                       // DB 버전 (스키마 변경 시 증가)
+        version = 4,                                       // DB 버전 (스키마 변경 시 증가)
         exportSchema = false                               // 스키마 자동 export 안 함
 )
 @TypeConverters({TransactionTypeConverter.class})      // enum 변환기 등록
@@ -53,6 +72,98 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     public abstract CardDao cardDao();
 
+    // ==================== 실행기 ====================
+
+    /**
+     * 읽기 스레드 - WAL이라 쓰기 트랜잭션 중에도 동시에 읽을 수 있으므로 여러 개
+     * 스레드 수만큼만 동시에 조회하고 나머지는 대기열에서 기다림, 쉬는 스레드는 30초 뒤 종료
+     */
+    private static ExecutorService newQueryExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedThreads("db-query"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 쓰기 스레드 1개 - 트랜잭션끼리 SQLite 쓰기 잠금을 두고 다투지 않음
+     */
+    private static ExecutorService newTransactionExecutor() {
+        return Executors.newSingleThreadExecutor(namedThreads("db-write"));
+    }
+
+    private static ThreadFactory namedThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // ==================== 마이그레이션 ====================
+
+    /**
+     * 1 → 2: 같은 카드가 스캔마다 새 행으로 쌓이던 것을 한 행으로 합침
+     *
+     * 1. 카드번호 정리 (CardEntity.normalizeCardNumber() 와 같은 규칙: 공백 / '-' 제거, 대문자)
+     * 2. 같은 (카드번호, 카드종류) 행 중 가장 최근 것만 남김
+     *    - 거래내역은 스캔마다 전체를 새로 저장했으므로 최근 행의 내역이 가장 최신
+     *    - 지우는 행의 거래내역도 함께 삭제 (마이그레이션 중에는 CASCADE에 기대지 않음)
+     * 3. UNIQUE 인덱스 생성 (Room이 CardEntity의 @Index로 기대하는 이름 그대로)
+     */
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("UPDATE cards SET cardNumber = UPPER(REPLACE(REPLACE(cardNumber, ' ', ''), '-', ''))");
+
+            String staleCards = "SELECT c.id FROM cards c WHERE EXISTS ("
+                    + "SELECT 1 FROM cards n"
+                    + " WHERE n.cardNumber = c.cardNumber AND n.cardType = c.cardType"
+                    + " AND (n.lastUpdated > c.lastUpdated OR (n.lastUpdated = c.lastUpdated AND n.id > c.id)))";
+            db.execSQL("DELETE FROM transactions WHERE cardId IN (" + staleCards + ")");
+            db.execSQL("DELETE FROM cards WHERE id IN (" + staleCards + ")");
+
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_cards_cardNumber_cardType` "
+                    + "ON `cards` (`cardNumber`, `cardType`)");
+        }
+    };
+
+    /**
+     * 2 → 3: 거래내역을 새 레코드만 추가하도록 (Transaction의 UNIQUE 인덱스)
+     *
+     * 1. sequence 컬럼 추가 (기존 행은 0, 일련번호를 알 수 없음)
+     * 2. date가 NULL인 행은 "" 로 (UNIQUE 인덱스에서 NULL끼리는 같은 값으로 보지 않음)
+     * 3. 키가 같은 행 중 가장 먼저 저장된 것 (id가 가장 작은 것) 만 남김
+     * 4. UNIQUE 인덱스 생성 (Room이 Transaction의 @Index로 기대하는 이름 그대로)
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE transactions ADD COLUMN sequence INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE transactions SET date = '' WHERE date IS NULL");
+            db.execSQL("DELETE FROM transactions WHERE id NOT IN ("
+                    + "SELECT MIN(id) FROM transactions"
+                    + " GROUP BY cardId, sequence, date, amount, balanceAfter, transactionType)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS "
+                    + "`index_transactions_cardId_sequence_date_amount_balanceAfter_transactionType` "
+                    + "ON `transactions` (`cardId`, `sequence`, `date`, `amount`, `balanceAfter`, `transactionType`)");
+        }
+    };
+
+    /**
+     * 3 → 4: 이용내역을 최근순으로 페이지 단위 조회 (정렬 없이 인덱스 순서대로 읽음)
+     * (cardId, timestamp) 인덱스가 cardId 인덱스 역할도 하므로 cardId 인덱스는 삭제
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_transactions_cardId`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_cardId_timestamp` "
+                    + "ON `transactions` (`cardId`, `timestamp`)");
+        }
+    };
+
     /**
      * Database 인스턴스 가져오기 (Singleton)
      *
@@ -81,7 +192,13 @@ public abstract class AppDatabase extends RoomDatabase {
                             context.getApplicationContext(),  // Application Context 사용 (메모리 누수 방지)
                             AppDatabase.class,                // Database 클래스
                             "transit_card_database"           // DB 파일명
-                    ).build();
+                    )
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)  // 기존 데이터 유지한 채 스키마 변경
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .setQueryExecutor(newQueryExecutor(
+                                    context.getResources().getInteger(R.integer.db_query_threads)))
+                            .setTransactionExecutor(newTransactionExecutor())
+                            .build();
 
                     // 이 순간 SQLite 파일이 생성됨
                     // CREATE TABLE cards (...);
@@ -139,6 +256,7 @@ public abstract class AppDatabase extends RoomDatabase {
  *     ├── amount (INTEGER)
  *     ├── balanceAfter (INTEGER)
  *     ├── transactionType (TEXT)
+ *     ├── sequence (INTEGER, 카드의 거래 일련번호)
  *     └── timestamp (INTEGER)
  *
  *
@@ -0,0 +1,89 @@
+package com.transitcard.reader;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * BatchScanAdapter - 연속 스캔 모드의 스캔 결과 목록
+ *
+ * 역할:
+ * - 최근 스캔이 맨 위에 오도록 한 줄씩 추가
+ * - 새 스캔은 notifyItemInserted로 그 줄만 추가 (목록 전체를 다시 그리지 않음)
+ */
+public class BatchScanAdapter extends RecyclerView.Adapter<BatchScanAdapter.ScanViewHolder> {
+
+    private final List<BatchSession.Scan> scans = new ArrayList<>();
+    private final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.KOREA);
+
+    public void addScan(BatchSession.Scan scan) {
+        scans.add(0, scan);
+        notifyItemInserted(0);
+    }
+
+    public void clear() {
+        int count = scans.size();
+        scans.clear();
+        notifyItemRangeRemoved(0, count);
+    }
+
+    @NonNull
+    @Override
+    public ScanViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_batch_scan, parent, false);
+        return new ScanViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ScanViewHolder holder, int position) {
+        // 번호는 스캔 순서 (맨 위가 가장 큰 번호)
+        holder.bind(scans.get(position), scans.size() - position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return scans.size();
+    }
+
+    class ScanViewHolder extends RecyclerView.ViewHolder {
+        private final TextView indexTextView;
+        private final TextView titleTextView;
+        private final TextView detailTextView;
+        private final TextView resultTextView;
+
+        public ScanViewHolder(@NonNull View itemView) {
+            super(itemView);
+            indexTextView = itemView.findViewById(R.id.scanIndexTextView);
+            titleTextView = itemView.findViewById(R.id.scanTitleTextView);
+            detailTextView = itemView.findViewById(R.id.scanDetailTextView);
+            resultTextView = itemView.findViewById(R.id.scanResultTextView);
+        }
+
+        public void bind(BatchSession.Scan scan, int index) {
+            indexTextView.setText(String.valueOf(index));
+
+            if (scan.isSuccess()) {
+                titleTextView.setText(scan.cardType.getDisplayName() + "  " + scan.cardNumber);
+                detailTextView.setText("이용내역 " + scan.transactionCount + "건 · " + scan.latencyMs + "ms (저장 "
+                        + scan.writeMs + "ms)");
+                resultTextView.setText(numberFormat.format(scan.balance) + "원");
+                resultTextView.setTextColor(itemView.getContext().getColor(android.R.color.black));
+            } else {
+                titleTextView.setText(scan.errorMessage);
+                detailTextView.setText(scan.latencyMs + "ms");
+                resultTextView.setText("실패");
+                resultTextView.setTextColor(itemView.getContext().getColor(android.R.color.holo_red_dark));
+            }
+        }
+    }
+}
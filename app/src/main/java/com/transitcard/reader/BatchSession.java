@@ -0,0 +1,104 @@
+package com.transitcard.reader;
+
+/**
+ * BatchSession - 연속 스캔 모드 1회 (창구에서 여러 카드를 이어서 읽는 동안)의 통계
+ *
+ * 역할:
+ * - 성공 / 실패 스캔 수 집계
+ * - 분당 처리 카드 수 (모드를 켠 시점부터)
+ * - 평균 태그 → 결과 지연 (태그 감지부터 DB 저장 완료까지, 성공한 스캔만)
+ * - 평균 DB 저장 시간 (CardDao.saveScan() 트랜잭션 1건, 성공한 스캔만)
+ *
+ * UI 스레드에서만 사용
+ */
+public class BatchSession {
+
+    /**
+     * 스캔 1건의 결과 (목록에 한 줄로 표시)
+     */
+    public static class Scan {
+        public final CardType cardType;      // 실패한 경우 null
+        public final String cardNumber;      // 실패한 경우 null
+        public final int balance;
+        public final int transactionCount;
+        public final long latencyMs;
+        public final long writeMs;           // 실패한 경우 0
+        public final String errorMessage;    // 성공한 경우 null
+
+        private Scan(CardType cardType, String cardNumber, int balance, int transactionCount,
+                     long latencyMs, long writeMs, String errorMessage) {
+            this.cardType = cardType;
+            this.cardNumber = cardNumber;
+            this.balance = balance;
+            this.transactionCount = transactionCount;
+            this.latencyMs = latencyMs;
+            this.writeMs = writeMs;
+            this.errorMessage = errorMessage;
+        }
+
+        public boolean isSuccess() {
+            return errorMessage == null;
+        }
+    }
+
+    private final long startNanos;
+    private int successCount = 0;
+    private int failureCount = 0;
+    private long totalLatencyNanos = 0;
+    private long totalWriteNanos = 0;
+
+    public BatchSession(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * @param writeNanos 그 중 DB 저장 (saveScan 트랜잭션) 에 걸린 시간
+     */
+    public Scan recordSuccess(TransitCardData cardData, long latencyNanos, long writeNanos) {
+        successCount++;
+        totalLatencyNanos += latencyNanos;
+        totalWriteNanos += writeNanos;
+        int transactionCount = cardData.getTransactionHistory() != null
+                ? cardData.getTransactionHistory().size() : 0;
+        return new Scan(cardData.getCardType(), cardData.getCardNumber(), cardData.getBalance(),
+                transactionCount, latencyNanos / 1_000_000, writeNanos / 1_000_000, null);
+    }
+
+    public Scan recordFailure(String errorMessage, long latencyNanos) {
+        failureCount++;
+        return new Scan(null, null, 0, 0, latencyNanos / 1_000_000, 0, errorMessage);
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * 모드를 켠 뒤 분당 저장된 카드 수 (1초 이전에는 0)
+     */
+    public double getCardsPerMinute(long nowNanos) {
+        long elapsedNanos = nowNanos - startNanos;
+        if (elapsedNanos < 1_000_000_000L) return 0;
+        return successCount * 60_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * 성공한 스캔의 평균 태그 → 결과 지연 (ms), 없으면 0
+     */
+    public long getAverageLatencyMs() {
+        if (successCount == 0) return 0;
+        return totalLatencyNanos / successCount / 1_000_000;
+    }
+
+    /**
+     * 성공한 스캔의 평균 DB 저장 시간 (ms), 없으면 0
+     */
+    public long getAverageWriteMs() {
+        if (successCount == 0) return 0;
+        return totalWriteNanos / successCount / 1_000_000;
+    }
+}
@@ -11,6 +11,7 @@ import androidx.room.Update;
 import com.transitcard.reader.CardEntity;
 import com.transitcard.reader.CardWithTransactions;
 import com.transitcard.reader.Transaction;
+import com.transitcard.reader.TransitCardData;
 
 import java.util.List;
 
@@ -43,8 +44,9 @@ public interface CardDao {
      * @return 생성된 카드의 id (1, 2, 3...)
      *
      * OnConflictStrategy.IGNORE:
-     * - 같은 id가 있으면 무시하고 -1 반환
+     * - 같은 id 또는 같은 (카드번호, 카드종류) 가 있으면 무시하고 -1 반환
      * - 새로 추가되면 자동 생성된 id 반환
+     * - 다시 스캔한 카드 저장은 upsertCard() 사용
      *
      * Room이 자동 생성하는 SQL:
      * INSERT OR IGNORE INTO cards (cardNumber, cardType, balance, lastUpdated)
@@ -123,6 +125,44 @@ public interface CardDao {
     @Query("SELECT * FROM cards WHERE cardNumber = :cardNumber LIMIT 1")
     CardEntity getCardByNumber(String cardNumber);
 
+    /**
+     * (카드번호, 카드종류) 로 카드 찾기
+     *
+     * @param cardNumber CardEntity.normalizeCardNumber() 로 정리한 카드번호
+     * @param cardType 카드종류 (CardType.getDisplayName())
+     * @return CardEntity 객체 (없으면 null)
+     *
+     * index_cards_cardNumber_cardType (UNIQUE) 로 찾음 → 테이블 전체를 훑지 않음
+     */
+    @Query("SELECT * FROM cards WHERE cardNumber = :cardNumber AND cardType = :cardType")
+    CardEntity getCard(String cardNumber, String cardType);
+
+    /**
+     * 카드 저장 (있으면 업데이트, 없으면 추가)
+     *
+     * @param card 저장할 카드 (id는 무시, 카드번호 + 종류로 기존 행을 찾음)
+     * @return 저장된 카드의 id
+     *
+     * 동작:
+     * - 같은 카드가 있으면 그 행의 잔액 / 업데이트 시간만 바꿈 (id 유지)
+     * - 없으면 새 행 추가
+     * - 찾기 + 쓰기를 한 트랜잭션으로 → 동시에 저장해도 같은 카드가 두 행이 되지 않음
+     *
+     * 사용 예:
+     * CardEntity card = new CardEntity("1234 5678 9012 3456", "티머니", 50000);
+     * int cardId = cardDao.upsertCard(card);  // 몇 번을 스캔해도 같은 id
+     */
+    @androidx.room.Transaction
+    default int upsertCard(CardEntity card) {
+        CardEntity existing = getCard(card.getCardNumber(), card.getCardType());
+        if (existing == null) {
+            return (int) insertCard(card);
+        }
+        card.setId(existing.getId());
+        updateCard(card);
+        return existing.getId();
+    }
+
     /**
      * 모든 카드 조회 (LiveData) - 자동 업데이트
      *
@@ -170,6 +210,10 @@ public interface CardDao {
      *
      * @return CardWithTransactions 리스트
      *
+     * 주의:
+     * - 모든 카드의 모든 거래를 한 번에 메모리에 올림 (무언가 바뀔 때마다 전부 다시 조회)
+     * - 화면은 getAllCardsLive() + getLatestTransactions() / getTransactionsBefore() 페이지 조회 사용
+     *
      * @androidx.room.Transaction:
      * - Room의 @Transaction 어노테이션
      * - 우리 Transaction 클래스와 이름이 같아서 풀 패키지명 사용
@@ -211,28 +255,104 @@ public interface CardDao {
     @Query("SELECT * FROM cards WHERE id = :cardId")
     CardWithTransactions getCardWithTransactions(int cardId);
 
+    // ==================== 스캔 저장 ====================
+
+    /**
+     * 스캔 1건 저장 - 카드 upsert + 잔액 갱신 + 새 거래내역 추가를 한 트랜잭션으로
+     *
+     * @param cardData NFC로 읽은 카드 데이터
+     * @return 새로 추가된 거래 수 (이미 저장된 거래는 제외)
+     *
+     * 한 트랜잭션인 이유:
+     * - 중간에 실패하면 아무것도 저장되지 않음 (거래내역 없는 카드가 남지 않음)
+     * - 커밋 (fsync) 1번
+     * - LiveData 무효화도 커밋 시점에 1번 → 카드 목록 (getAllCardsLive) 은 스캔당 한 번만 다시 조회
+     *
+     * 카드는 최근 거래부터 돌려주므로 저장 시간도 그 순서대로 1ms씩 앞당김
+     * (timestamp 내림차순 = 최근순, 이미 저장된 거래는 처음 저장된 시간 유지)
+     *
+     * 사용 예 (백그라운드 스레드):
+     * int added = cardDao.saveScan(cardData);
+     */
+    @androidx.room.Transaction
+    default int saveScan(TransitCardData cardData) {
+        CardEntity card = new CardEntity(
+                cardData.getCardNumber(),
+                cardData.getCardType().getDisplayName(),
+                cardData.getBalance()
+        );
+        int cardId = upsertCard(card);
+
+        List<Transaction> transactions = cardData.getTransactionHistory();
+        if (transactions == null || transactions.isEmpty()) return 0;
+
+        // 일련번호 없이 저장된 거래 (마이그레이션 2 → 3 이전) 가 있으면 같은 거래에 일련번호를 채움
+        // → 아래 INSERT OR IGNORE가 그 행과 같은 키로 보고 다시 추가하지 않음
+        boolean hasLegacy = hasTransactionsWithoutSequence(cardId);
+
+        long savedAt = System.currentTimeMillis();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            transaction.setCardId(cardId);
+            transaction.setTimestamp(savedAt - i);
+            if (hasLegacy && transaction.getSequence() != 0) {
+                backfillSequence(cardId, transaction.getDate(), transaction.getAmount(),
+                        transaction.getBalanceAfter(), transaction.getTransactionType(), transaction.getSequence());
+            }
+        }
+
+        int added = 0;
+        for (long id : insertTransactions(transactions)) {
+            if (id != -1) added++;
+        }
+        return added;
+    }
+
     // ==================== 거래내역 관련 ====================
 
+    /**
+     * 일련번호 없이 (sequence = 0) 저장된 거래가 있는지
+     * (마이그레이션 2 → 3 이전 거래, 또는 레코드에 일련번호가 없는 카드)
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM transactions WHERE cardId = :cardId AND sequence = 0)")
+    boolean hasTransactionsWithoutSequence(int cardId);
+
+    /**
+     * 일련번호 없이 저장된 같은 거래 (나머지 키 값이 같음) 에 일련번호 채우기
+     *
+     * @return 채운 행 수 (0 또는 1)
+     *
+     * UPDATE OR IGNORE: 그 일련번호의 거래가 이미 있으면 건드리지 않음 (UNIQUE 인덱스 충돌 방지)
+     */
+    @Query("UPDATE OR IGNORE transactions SET sequence = :sequence "
+            + "WHERE cardId = :cardId AND sequence = 0 AND date = :date AND amount = :amount "
+            + "AND balanceAfter = :balanceAfter AND transactionType = :transactionType")
+    int backfillSequence(int cardId, String date, int amount, int balanceAfter,
+                         TransactionType transactionType, int sequence);
+
     /**
      * 거래내역 1개 삽입
      *
      * @param transaction 추가할 거래
+     * @return 생성된 id, 이미 저장된 거래면 -1
      *
-     * OnConflictStrategy.REPLACE:
-     * - 같은 id가 있으면 덮어쓰기
-     * - 보통은 새로 추가됨 (autoGenerate)
+     * OnConflictStrategy.IGNORE:
+     * - 같은 거래 (Transaction의 UNIQUE 인덱스 키가 같음) 가 있으면 무시
+     * - 기존 행 (id, 처음 저장된 timestamp) 은 그대로
      */
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertTransaction(Transaction transaction);
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertTransaction(Transaction transaction);
 
     /**
-     * 거래내역 여러개 삽입
+     * 거래내역 여러개 삽입 (새 거래만)
      *
      * @param transactions 추가할 거래 리스트
+     * @return 각 거래의 생성된 id, 이미 저장된 거래는 -1
      *
      * 동작:
      * - List의 모든 거래를 하나의 트랜잭션으로 삽입
-     * - 빠르고 효율적
+     * - INSERT OR IGNORE: 다시 스캔한 카드는 지난번 이후의 새 레코드만 추가됨
+     *   (카드가 보관하는 건수를 넘어 내역이 쌓임)
      *
      * 주의:
      * - 각 Transaction에 cardId 설정 필수!
@@ -244,8 +364,8 @@ public interface CardDao {
      * }
      * cardDao.insertTransactions(transactions);
      */
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertTransactions(List<Transaction> transactions);
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertTransactions(List<Transaction> transactions);
 
     /**
      * 특정 카드의 거래내역 삭제
@@ -253,16 +373,10 @@ public interface CardDao {
      * @param cardId 삭제할 카드 ID
      *
      * 용도:
-     * - 완전 교체 전략 (기존 삭제 → 새로 추가)
+     * - 카드의 쌓인 내역 비우기 (스캔 저장에는 사용하지 않음, insertTransactions가 새 거래만 추가)
      *
      * 사용 예:
-     * // 1. 기존 거래내역 전부 삭제
      * cardDao.deleteTransactionsByCardId(cardId);
-     *
-     * // 2. 새 거래내역 추가
-     * cardDao.insertTransactions(newTransactions);
-     *
-     * → 항상 최신 상태 유지!
      */
     @Query("DELETE FROM transactions WHERE cardId = :cardId")
     void deleteTransactionsByCardId(int cardId);
@@ -285,6 +399,36 @@ public interface CardDao {
      */
     @Query("SELECT * FROM transactions WHERE cardId = :cardId ORDER BY timestamp DESC")
     List<Transaction> getTransactionsByCardId(int cardId);
+
+    /**
+     * 이용내역 첫 페이지 (최근 limit건)
+     *
+     * @param cardId 카드 ID
+     * @param limit 페이지 크기
+     * @return 최근순 거래 리스트
+     *
+     * ORDER BY timestamp DESC, id DESC:
+     * - (cardId, timestamp) 인덱스를 뒤에서부터 읽음 (정렬 작업 없음)
+     * - 같은 timestamp는 나중에 저장된 행 먼저
+     */
+    @Query("SELECT * FROM transactions WHERE cardId = :cardId "
+            + "ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    List<Transaction> getLatestTransactions(int cardId, int limit);
+
+    /**
+     * 이용내역 다음 페이지 (keyset) - 앞 페이지 마지막 거래보다 오래된 limit건
+     *
+     * @param beforeTimestamp 앞 페이지 마지막 거래의 timestamp
+     * @param beforeId 앞 페이지 마지막 거래의 id
+     *
+     * OFFSET 대신 마지막 (timestamp, id) 부터 이어 읽음:
+     * - timestamp <= ? 로 인덱스에서 바로 그 위치로 이동 → 몇 번째 페이지든 비용이 같음
+     * - 같은 timestamp 안에서는 id로 이어감 (중복 / 누락 없음)
+     */
+    @Query("SELECT * FROM transactions WHERE cardId = :cardId AND timestamp <= :beforeTimestamp "
+            + "AND (timestamp < :beforeTimestamp OR id < :beforeId) "
+            + "ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    List<Transaction> getTransactionsBefore(int cardId, long beforeTimestamp, int beforeId, int limit);
 }
 
 /*
@@ -1,6 +1,7 @@
 package com.transitcard.reader;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
@@ -21,8 +22,13 @@ import androidx.room.PrimaryKey;
  *     balance INTEGER,
  *     lastUpdated INTEGER
  * )
+ * CREATE UNIQUE INDEX index_cards_cardNumber_cardType ON cards (cardNumber, cardType)
+ *
+ * 같은 카드 = 같은 (카드번호, 카드종류) → 한 행만 존재 (다시 스캔하면 그 행을 업데이트)
+ * 카드번호는 normalizeCardNumber()로 정리한 값으로 저장
  */
-@Entity(tableName = "cards")  // "cards" 테이블로 생성
+@Entity(tableName = "cards",  // "cards" 테이블로 생성
+        indices = {@Index(value = {"cardNumber", "cardType"}, unique = true)})
 public class CardEntity {
 
     /**
@@ -34,8 +40,8 @@ public class CardEntity {
     private int id;
 
     /**
-     * 카드번호
-     * 예: "1234567890123456"
+     * 카드번호 (공백 / '-' 없이, 영문은 대문자)
+     * 예: "1234567890123456", 번호를 못 읽은 카드는 UID hex ("04A1B2C3")
      * 중복 확인용으로 사용
      */
     private String cardNumber;
@@ -77,12 +83,27 @@ public class CardEntity {
      * CardEntity card = new CardEntity("1234567890", "티머니", 50000);
      */
     public CardEntity(String cardNumber, String cardType, int balance) {
-        this.cardNumber = cardNumber;
+        this.cardNumber = normalizeCardNumber(cardNumber);
         this.cardType = cardType;
         this.balance = balance;
         this.lastUpdated = System.currentTimeMillis();  // 현재 시간 자동 설정
     }
 
+    /**
+     * 카드번호 정리 - 화면용 표기 ("1234 5678 ...") 와 저장된 값을 같은 키로 맞춤
+     * 공백 / '-' 제거, 영문 대문자로 (AppDatabase.MIGRATION_1_2 의 SQL과 같은 규칙)
+     */
+    public static String normalizeCardNumber(String cardNumber) {
+        if (cardNumber == null) return null;
+        StringBuilder normalized = new StringBuilder(cardNumber.length());
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c == ' ' || c == '-') continue;
+            normalized.append(Character.toUpperCase(c));
+        }
+        return normalized.toString();
+    }
+
     // ==================== Getters and Setters ====================
     // Room이 데이터베이스와 객체 간 변환 시 사용
 
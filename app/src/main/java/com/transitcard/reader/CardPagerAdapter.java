@@ -26,18 +26,18 @@ import java.util.Locale;
  */
 public class CardPagerAdapter extends RecyclerView.Adapter<CardPagerAdapter.CardViewHolder> {
 
-    private List<CardWithTransactions> cards = new ArrayList<>();
+    private List<CardEntity> cards = new ArrayList<>();
     private OnCardDeleteListener deleteListener;
 
     public interface OnCardDeleteListener {
-        void onCardDelete(CardWithTransactions card);
+        void onCardDelete(CardEntity card);
     }
 
     public void setOnCardDeleteListener(OnCardDeleteListener listener) {
         this.deleteListener = listener;
     }
 
-    public void setCards(List<CardWithTransactions> cards) {
+    public void setCards(List<CardEntity> cards) {
         this.cards = cards;
         notifyDataSetChanged();
     }
@@ -52,8 +52,8 @@ public class CardPagerAdapter extends RecyclerView.Adapter<CardPagerAdapter.Card
 
     @Override
     public void onBindViewHolder(@NonNull CardViewHolder holder, int position) {
-        CardWithTransactions cardWithTrans = cards.get(position);
-        holder.bind(cardWithTrans);
+        CardEntity card = cards.get(position);
+        holder.bind(card);
     }
 
     @Override
@@ -78,18 +78,18 @@ public class CardPagerAdapter extends RecyclerView.Adapter<CardPagerAdapter.Card
             deleteButton = itemView.findViewById(R.id.deleteButton);
         }
 
-        public void bind(CardWithTransactions cardWithTrans) {
+        public void bind(CardEntity card) {
             NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.KOREA);
 
             // 카드 정보 표시
-            cardTypeTextView.setText(cardWithTrans.card.getCardType());
-            cardNumberTextView.setText(formatCardNumber(cardWithTrans.card.getCardNumber()));
-            balanceTextView.setText(numberFormat.format(cardWithTrans.card.getBalance()) + "원");
+            cardTypeTextView.setText(card.getCardType());
+            cardNumberTextView.setText(formatCardNumber(card.getCardNumber()));
+            balanceTextView.setText(numberFormat.format(card.getBalance()) + "원");
 
             // 삭제 버튼 클릭 리스너
             deleteButton.setOnClickListener(v -> {
                 if (deleteListener != null) {
-                    deleteListener.onCardDelete(cardWithTrans);
+                    deleteListener.onCardDelete(card);
                 }
             });
         }
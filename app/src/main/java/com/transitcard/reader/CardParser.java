@@ -1,7 +1,20 @@
 package com.transitcard.reader;
 
-import android.nfc.tech.IsoDep;
+import android.nfc.TagLostException;
 
+/**
+ * 카드 종류별 파서
+ *
+ * 구현은 상태를 가지지 않음 - 인스턴스 하나를 모든 세션이 함께 사용하며 (AidRegistry),
+ * 세션마다 달라지는 값은 CardSession에 저장
+ */
 public interface CardParser {
-    TransitCardData parse(IsoDep isoDep, byte[] cardId);
+    /**
+     * 카드 데이터 읽기
+     * 읽는 도중 잔액 / 카드번호 / 거래내역을 session을 통해 바로 전달함
+     *
+     * @return 읽기 실패 시 null
+     * @throws TagLostException 읽는 도중 카드가 떨어짐 (읽은 부분은 session의 ReadProgress에 남음)
+     */
+    TransitCardData parse(CardSession session) throws TagLostException;
 }
@@ -0,0 +1,30 @@
+package com.transitcard.reader;
+
+/**
+ * CardReadListener - 카드 읽기 진행 상황 수신
+ *
+ * 전체 TransitCardData가 완성되기 전에 읽은 순서대로 전달됨
+ * 카드 종류 → 잔액 → 카드번호 → 거래내역 (1건씩)
+ *
+ * 주의: NFC 스레드에서 호출되므로 UI 갱신은 메인 스레드로 넘겨야 함
+ * (onTransaction은 디코딩 스레드에서 호출될 수 있음 - DecodePipeline)
+ */
+public interface CardReadListener {
+    default void onCardType(CardType cardType) {
+    }
+
+    default void onBalance(int balance) {
+    }
+
+    default void onCardNumber(String cardNumber) {
+    }
+
+    default void onTransaction(Transaction transaction) {
+    }
+
+    /**
+     * 읽는 도중 카드가 떨어짐 - 읽은 부분은 보관되며, 곧 다시 태그하면 이어서 읽음
+     */
+    default void onTagLost() {
+    }
+}
@@ -0,0 +1,173 @@
+package com.transitcard.reader;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * CardSession - 카드 1회 읽기(태그 1번)에 필요한 정보 묶음
+ *
+ * - APDU 전송 채널
+ * - 카드 UID
+ * - 감지 단계에서 받은 FCI 응답
+ * - 진행 상황 리스너 (없으면 null)
+ * - 지금까지 읽은 내용 (이전 태그에서 끊긴 경우 그 상태에서 시작)
+ * - 발급사별 거래내역 읽기 방법 (없으면 null)
+ * - 거래 레코드 디코딩 파이프라인 (디코딩 스레드가 없으면 호출한 스레드에서 바로 디코딩)
+ * - 응답 TLV 색인 (NFC 스레드에서 응답마다 재사용)
+ * - 파서가 세션 동안 기억하는 값 (거래 레코드 레이아웃)
+ * - 현재 선택된 애플리케이션과 지금까지 받은 FCI (이미 선택된 AID는 다시 SELECT하지 않음)
+ *
+ * 파서는 상태를 가지지 않으므로 세션마다 달라지는 값은 모두 여기에 둠
+ * → 여러 리더의 세션이 같은 파서를 동시에 사용해도 됨
+ */
+public class CardSession {
+    private static final String TAG = "CardSession";
+
+    private final ApduChannel channel;
+    private final byte[] cardId;
+    private final byte[] fci;
+    private final CardReadListener listener;
+    private final ReadProgress progress;
+    private final HistoryStrategyCache historyStrategies;
+    private final DecodePipeline decodePipeline;
+    private final TlvIndex tlvIndex = new TlvIndex();
+
+    // 현재 선택된 애플리케이션 (모르면 null) / AID(hex) → FCI
+    private byte[] selectedAid = null;
+    private final Map<String, byte[]> fciByAid = new HashMap<>();
+
+    // 디코딩 스레드에서 정해질 수 있음
+    private volatile HistoryStrategyCache.Layout historyLayout = null;
+
+    public CardSession(ApduChannel channel, byte[] cardId, byte[] fci, CardReadListener listener,
+                       ReadProgress progress) {
+        this(channel, cardId, fci, listener, progress, null, null);
+    }
+
+    /**
+     * @param decodeExecutor 거래 레코드 디코딩 스레드 (null이면 호출한 스레드에서 디코딩)
+     */
+    public CardSession(ApduChannel channel, byte[] cardId, byte[] fci, CardReadListener listener,
+                       ReadProgress progress, HistoryStrategyCache historyStrategies,
+                       Executor decodeExecutor) {
+        this.channel = channel;
+        this.cardId = cardId;
+        this.fci = fci;
+        this.listener = listener;
+        this.progress = progress;
+        this.historyStrategies = historyStrategies;
+        this.decodePipeline = new DecodePipeline(decodeExecutor, listener);
+    }
+
+    public ApduChannel getChannel() {
+        return channel;
+    }
+
+    public byte[] getCardId() {
+        return cardId;
+    }
+
+    public byte[] getFci() {
+        return fci;
+    }
+
+    public ReadProgress getProgress() {
+        return progress;
+    }
+
+    public HistoryStrategyCache getHistoryStrategies() {
+        return historyStrategies;
+    }
+
+    public DecodePipeline getDecodePipeline() {
+        return decodePipeline;
+    }
+
+    /**
+     * NFC 스레드 전용 - parse() 할 때마다 이전 색인은 덮어씀
+     */
+    public TlvIndex getTlvIndex() {
+        return tlvIndex;
+    }
+
+    // ===== 애플리케이션 선택 =====
+
+    /**
+     * 세션 밖 (카드 감지) 에서 선택된 애플리케이션 기록
+     */
+    public void recordSelected(byte[] aid, byte[] fci) {
+        if (aid == null) return;
+        selectedAid = aid;
+        if (fci != null) fciByAid.put(ApduCodec.toHex(aid), fci);
+    }
+
+    /**
+     * 애플리케이션 SELECT - 이미 선택되어 있으면 보내지 않고 받아 둔 FCI 반환
+     * (NFC 스레드 전용)
+     *
+     * @return SELECT 응답 (데이터 + SW)
+     */
+    public byte[] selectApplication(byte[] aid) throws IOException {
+        if (selectedAid != null && Arrays.equals(selectedAid, aid)) {
+            byte[] fci = fciByAid.get(ApduCodec.toHex(aid));
+            if (fci != null) {
+                ReaderLog.d(TAG, "SELECT skipped - application already selected");
+                return fci;
+            }
+        }
+
+        byte[] response = channel.transceive(ApduCodec.selectByName(aid));
+        int sw1 = ApduCodec.sw1(response);
+        if (sw1 == 0x90 || sw1 == 0x62) {
+            recordSelected(aid, response);
+        } else {
+            // 실패한 SELECT 이후 카드의 현재 선택 상태는 알 수 없음
+            selectedAid = null;
+        }
+        return response;
+    }
+
+    /**
+     * 현재 선택된 애플리케이션 AID (모르면 null)
+     */
+    public byte[] getSelectedAid() {
+        return selectedAid;
+    }
+
+    /**
+     * 이 세션에서 받은 해당 AID의 FCI (받은 적 없으면 null)
+     */
+    public byte[] getFci(byte[] aid) {
+        return fciByAid.get(ApduCodec.toHex(aid));
+    }
+
+    // ===== 파서 세션 상태 =====
+
+    /**
+     * 거래 레코드 레이아웃 (모르면 null → 날짜로 판별)
+     */
+    public HistoryStrategyCache.Layout getHistoryLayout() {
+        return historyLayout;
+    }
+
+    public void setHistoryLayout(HistoryStrategyCache.Layout historyLayout) {
+        this.historyLayout = historyLayout;
+    }
+
+    // ===== 진행 상황 전달 =====
+
+    public void publishCardType(CardType cardType) {
+        if (listener != null) listener.onCardType(cardType);
+    }
+
+    public void publishBalance(int balance) {
+        if (listener != null) listener.onBalance(balance);
+    }
+
+    public void publishCardNumber(String cardNumber) {
+        if (listener != null) listener.onCardNumber(cardNumber);
+    }
+}
@@ -0,0 +1,173 @@
+package com.transitcard.reader;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CardTypeCache - 태그 UID별 카드 종류 / AID 캐시
+ *
+ * 역할:
+ * - 한 번 감지된 카드의 CardType과 선택에 성공한 AID를 UID 기준으로 기억
+ * - 같은 카드를 다시 태그하면 AID 탐색(SELECT 최대 4회) 없이 바로 해당 AID 선택
+ * - LRU 방식으로 최대 개수 제한, SharedPreferences에 저장하여 앱 재시작 후에도 유지
+ * - 적중으로 바뀐 사용 순서도 저장 대상 - 변경은 표시만 하고 save() 에서 한 번에 기록 (태그 1회당 최대 1번)
+ *
+ * 통계:
+ * - 캐시 적중률, 적중 시 절약된 감지 시간(전체 탐색 평균 - 적중 평균)
+ */
+public class CardTypeCache {
+    private static final String TAG = "CardTypeCache";
+
+    private static final String PREFS_NAME = "card_type_cache";
+    private static final String KEY_ENTRIES = "entries";
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * 캐시 항목 (카드 종류 + 선택에 성공한 AID)
+     */
+    public static class Entry {
+        public final CardType cardType;
+        public final byte[] aid;
+
+        Entry(CardType cardType, byte[] aid) {
+            this.cardType = cardType;
+            this.aid = aid;
+        }
+    }
+
+    private final SharedPreferences prefs;
+    private final Map<String, Entry> entries;
+    private boolean dirty = false;  // 항목 또는 사용 순서가 바뀌었는지
+
+    // 통계
+    private int hits = 0;
+    private int misses = 0;
+    private int staleHits = 0;  // 캐시에 있었지만 SELECT 실패로 전체 탐색한 경우
+    private long hitNanos = 0;
+    private long missNanos = 0;
+
+    public CardTypeCache(Context context) {
+        this(context, DEFAULT_MAX_ENTRIES);
+    }
+
+    public CardTypeCache(Context context, final int maxEntries) {
+        this.prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        // accessOrder = true → 최근 사용 순서 유지 (LRU)
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        load();
+    }
+
+    public synchronized Entry get(byte[] cardId) {
+        if (cardId == null) return null;
+        Entry entry = entries.get(ApduCodec.toHex(cardId));
+        if (entry != null) dirty = true;  // 가장 최근 항목으로 옮겨짐
+        return entry;
+    }
+
+    public synchronized void put(byte[] cardId, CardType cardType, byte[] aid) {
+        if (cardId == null || aid == null || cardType == CardType.UNKNOWN) return;
+        entries.put(ApduCodec.toHex(cardId), new Entry(cardType, aid.clone()));
+        dirty = true;
+    }
+
+    public synchronized void remove(byte[] cardId) {
+        if (cardId == null) return;
+        if (entries.remove(ApduCodec.toHex(cardId)) != null) {
+            dirty = true;
+        }
+    }
+
+    // ===== 통계 =====
+
+    /**
+     * 감지 결과 기록
+     *
+     * @param cacheHit 캐시된 AID로 바로 선택에 성공했는지
+     * @param stale    캐시 항목이 있었지만 SELECT 실패로 전체 탐색했는지
+     * @param nanos    감지에 걸린 시간
+     */
+    public synchronized void recordDetection(boolean cacheHit, boolean stale, long nanos) {
+        if (cacheHit) {
+            hits++;
+            hitNanos += nanos;
+        } else {
+            misses++;
+            missNanos += nanos;
+            if (stale) staleHits++;
+        }
+    }
+
+    public synchronized double getHitRate() {
+        int total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 캐시 적중 1회당 절약된 감지 시간 (ms)
+     * 전체 탐색 평균 시간 - 캐시 적중 평균 시간
+     */
+    public synchronized double getSavedMillisPerHit() {
+        if (hits == 0 || misses == 0) return 0;
+        double avgHit = hitNanos / (double) hits;
+        double avgMiss = missNanos / (double) misses;
+        return Math.max(0, avgMiss - avgHit) / 1_000_000.0;
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format("hit=%d miss=%d stale=%d hitRate=%.1f%% saved=%.1fms/hit size=%d",
+                hits, misses, staleHits, getHitRate() * 100, getSavedMillisPerHit(), entries.size());
+    }
+
+    // ===== 저장 / 불러오기 =====
+
+    /**
+     * 형식: "UID:CARDTYPE:AID;UID:CARDTYPE:AID;..." (오래된 항목 → 최근 항목 순)
+     */
+    private void load() {
+        String stored = prefs.getString(KEY_ENTRIES, null);
+        if (stored == null || stored.isEmpty()) return;
+
+        for (String item : stored.split(";")) {
+            String[] parts = item.split(":");
+            if (parts.length != 3) continue;
+            try {
+                CardType cardType = CardType.valueOf(parts[1]);
+                byte[] aid = ApduCodec.fromHex(parts[2]);
+                if (aid != null) {
+                    entries.put(parts[0], new Entry(cardType, aid));
+                }
+            } catch (IllegalArgumentException e) {
+                ReaderLog.w(TAG, "Skipping invalid cache entry: " + item);
+            }
+        }
+        ReaderLog.d(TAG, () -> "Loaded " + entries.size() + " cached card types");
+    }
+
+    /**
+     * 바뀐 내용이 있을 때만 저장 (카드 세션이 끝날 때 호출)
+     */
+    public synchronized void save() {
+        if (!dirty) return;
+        StringBuilder sb = new StringBuilder();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            sb.append(e.getKey()).append(':')
+                    .append(e.getValue().cardType.name()).append(':')
+                    .append(ApduCodec.toHex(e.getValue().aid));
+            if (it.hasNext()) sb.append(';');
+        }
+        prefs.edit().putString(KEY_ENTRIES, sb.toString()).apply();
+        dirty = false;
+    }
+}
@@ -0,0 +1,120 @@
+package com.transitcard.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DecodePipeline - 거래 레코드 디코딩을 NFC 스레드에서 분리 (카드 1회 읽기 단위)
+ *
+ * - NFC 스레드: APDU만 보내고 받은 레코드 응답을 submit() 으로 넘긴 뒤 바로 다음 명령 전송
+ * - 디코딩 스레드: Transaction 생성 / 로그 / 리스너 전달
+ * - 디코딩 스레드는 1개 → 거래 순서는 레코드를 넘긴 순서 그대로
+ * - 대기열이 가득 차면 NFC 스레드가 자리가 날 때까지 기다림 (크기 제한)
+ * - await() 으로 지금까지 넘긴 레코드가 모두 디코딩된 결과를 받음 (다음 읽기 방법 결정 / 최종 결과)
+ *
+ * executor가 null이면 (기록 재생, 벤치마크) 호출한 스레드에서 바로 디코딩.
+ */
+public class DecodePipeline {
+    private static final String TAG = "DecodePipeline";
+
+    /**
+     * 레코드 응답 (데이터 + SW) → 거래 (해당 없으면 null)
+     */
+    public interface RecordDecoder {
+        Transaction decode(byte[] response);
+    }
+
+    private final Executor executor;
+    private final CardReadListener listener;
+    private final List<Transaction> transactions = new ArrayList<>();
+    private int pending = 0;
+
+    public DecodePipeline(Executor executor, CardReadListener listener) {
+        this.executor = executor;
+        this.listener = listener;
+    }
+
+    /**
+     * 디코딩 스레드 1개 + 크기 제한 대기열 (가득 차면 넣는 쪽이 기다림)
+     */
+    public static ThreadPoolExecutor newDecodeExecutor(int capacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "card-decoder");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    if (pool.isShutdown()) throw new RejectedExecutionException("Decoder shut down");
+                    try {
+                        pool.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while queueing record", e);
+                    }
+                });
+    }
+
+    public void submit(byte[] response, RecordDecoder decoder) {
+        if (executor == null) {
+            complete(decoder, response);
+            return;
+        }
+        synchronized (this) {
+            pending++;
+        }
+        try {
+            executor.execute(() -> complete(decoder, response));
+        } catch (RejectedExecutionException e) {
+            // 읽기 취소 / 종료 중 - 결과는 어차피 버려짐
+            ReaderLog.w(TAG, "Record dropped: " + e.getMessage());
+            synchronized (this) {
+                pending--;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 지금까지 넘긴 레코드가 모두 디코딩될 때까지 기다림
+     *
+     * @return 지금까지 디코딩된 거래 (넘긴 순서), 기다리는 중 interrupt 되면 그때까지의 결과
+     */
+    public synchronized List<Transaction> await() {
+        while (pending > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return new ArrayList<>(transactions);
+    }
+
+    private void complete(RecordDecoder decoder, byte[] response) {
+        Transaction tx = null;
+        try {
+            tx = decoder.decode(response);
+        } catch (RuntimeException e) {
+            ReaderLog.e(TAG, "Record decode failed", e);
+        }
+
+        synchronized (this) {
+            if (tx != null) transactions.add(tx);
+            if (executor != null) {
+                pending--;
+                notifyAll();
+            }
+        }
+        if (tx != null && listener != null) {
+            listener.onTransaction(tx);
+        }
+    }
+}
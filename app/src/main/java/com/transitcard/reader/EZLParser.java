@@ -1,109 +1,122 @@
 package com.transitcard.reader;
 
-import android.nfc.tech.IsoDep;
-import android.util.Log;
+import android.nfc.TagLostException;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class EZLParser implements CardParser {
     private static final String TAG = "EZLParser";
 
     // EZL 전용 명령어
-    private static final byte[] CMD_SELECT_SECONDARY_AID = {
-            0x00, (byte) 0xA4, 0x04, 0x00, 0x07,
-            (byte) 0xD4, 0x10, 0x00, 0x00, 0x14, 0x00, 0x01,
-            0x00
-    };
+    private static final byte[] SECONDARY_AID = {(byte) 0xD4, 0x10, 0x00, 0x00, 0x14, 0x00, 0x01};
     private static final byte[] CMD_BALANCE = {(byte) 0x90, 0x4C, 0x00, 0x00, 0x04};
 
     // SFI 4 사용 (모든 거래 정보)
     private static final byte P2_BALANCE_RECORD = 0x24;  // SFI 4
     private static final byte LE_RECORD = 0x1A;          // 26 bytes
+    private static final int MAX_RECORDS = 10;
 
     @Override
-    public TransitCardData parse(IsoDep isoDep, byte[] cardId) {
+    public TransitCardData parse(CardSession session) throws TagLostException {
+        ApduChannel channel = session.getChannel();
+        byte[] cardId = session.getCardId();
+        ReadProgress progress = session.getProgress();
         try {
             // EZL은 Secondary AID 선택 필요
-            selectSecondaryAid(isoDep);
+            selectSecondaryAid(session);
 
-            int balance = readBalance(isoDep);
-            String cardNumber = readCardNumber(isoDep);
-            if (cardNumber == null || cardNumber.isEmpty()) {
-                cardNumber = bytesToHex(cardId);
+            // 이전 태그에서 이미 읽었으면 다시 읽지 않음
+            if (progress.getBalance() == null) {
+                progress.setBalance(readBalance(channel));
             }
-            List<Transaction> transactions = readTransactionHistory(isoDep);
+            int balance = progress.getBalance();
+            session.publishBalance(balance);
+
+            if (progress.getCardNumber() == null) {
+                String cardNumber = readCardNumber(session);
+                if (cardNumber == null || cardNumber.isEmpty()) {
+                    cardNumber = ApduCodec.toHex(cardId);
+                }
+                progress.setCardNumber(cardNumber);
+            }
+            String cardNumber = progress.getCardNumber();
+            session.publishCardNumber(cardNumber);
+
+            List<Transaction> transactions = readTransactionHistory(session);
 
             return new TransitCardData(CardType.EZL, cardNumber, balance, transactions);
+        } catch (TagLostException e) {
+            // 중간까지 읽은 상태는 progress에 남아 있음 → NFCReader가 보관 후 다시 태그하면 이어 읽음
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "Error parsing EZL card", e);
-            return new TransitCardData(CardType.EZL, bytesToHex(cardId), 0, new ArrayList<>());
+            ReaderLog.e(TAG, "Error parsing EZL card", e);
+            return null;
         }
     }
 
     // ===== Secondary AID 선택 =====
 
-    private byte[] secondaryAidResponse = null;  // Secondary AID 응답 저장
-
-    private boolean selectSecondaryAid(IsoDep isoDep) {
+    private boolean selectSecondaryAid(CardSession session) throws TagLostException {
         try {
-            byte[] response = isoDep.transceive(CMD_SELECT_SECONDARY_AID);
-            Log.d(TAG, "Secondary AID response: " + bytesToHex(response));
+            // 이미 선택되어 있으면 (다시 태그한 카드 등) 명령을 보내지 않음
+            byte[] response = session.selectApplication(SECONDARY_AID);
+            ReaderLog.apdu(TAG, "Secondary AID response: ", response);
 
-            // 응답 저장 (카드번호 추출용)
-            if (isSuccess(response)) {
-                secondaryAidResponse = response;
-                Log.d(TAG, "Secondary AID selected successfully");
+            // 응답은 세션에 저장됨 (카드번호 추출용)
+            if (ApduCodec.isSuccess(response)) {
+                ReaderLog.d(TAG, "Secondary AID selected successfully");
             } else {
-                Log.w(TAG, "Secondary AID selection failed");
+                ReaderLog.w(TAG, "Secondary AID selection failed");
             }
 
-            return isSuccess(response);
+            return ApduCodec.isSuccess(response);
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "selectSecondaryAid error", e);
+            ReaderLog.e(TAG, "selectSecondaryAid error", e);
             return false;
         }
     }
 
     // ===== 잔액 읽기 =====
 
-    private int readBalance(IsoDep isoDep) {
+    private int readBalance(ApduChannel channel) throws TagLostException {
         try {
-            byte[] response = isoDep.transceive(CMD_BALANCE);
-            Log.d(TAG, "Balance response: " + bytesToHex(response));
-
-            if (response.length >= 6 && isSuccess(response)) {
-                int balance = ((response[0] & 0xFF) << 24) |
-                        ((response[1] & 0xFF) << 16) |
-                        ((response[2] & 0xFF) << 8) |
-                        (response[3] & 0xFF);
-                Log.i(TAG, "Balance: " + balance + "원");
+            byte[] response = channel.transceive(CMD_BALANCE);
+            ReaderLog.apdu(TAG, "Balance response: ", response);
+
+            if (response.length >= 6 && ApduCodec.isSuccess(response)) {
+                int balance = ApduCodec.getInt(response, 0);
+                ReaderLog.i(TAG, () -> "Balance: " + balance + "원");
                 return balance;
             }
             return 0;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "readBalance error", e);
+            ReaderLog.e(TAG, "readBalance error", e);
             return 0;
         }
     }
 
     // ===== 카드번호 읽기 =====
 
-    private String readCardNumber(IsoDep isoDep) {
-        Log.d(TAG, "=== readCardNumber ===");
+    private String readCardNumber(CardSession session) {
+        ReaderLog.d(TAG, "=== readCardNumber ===");
 
         // Secondary AID 응답에서 카드번호 추출
-        if (secondaryAidResponse != null) {
-            String cardNum = extractCardNumber(secondaryAidResponse);
+        byte[] secondaryFci = session.getFci(SECONDARY_AID);
+        if (secondaryFci != null) {
+            String cardNum = extractCardNumber(secondaryFci);
             if (cardNum != null) {
-                Log.i(TAG, "Card number found from Secondary AID");
+                ReaderLog.i(TAG, "Card number found from Secondary AID");
                 return cardNum;
             }
         } else {
-            Log.w(TAG, "Secondary AID response is null");
+            ReaderLog.w(TAG, "Secondary AID response is null");
         }
 
-        Log.w(TAG, "Card number not found");
+        ReaderLog.w(TAG, "Card number not found");
         return null;
     }
 
@@ -113,7 +126,7 @@ public class EZLParser implements CardParser {
      */
     private String extractCardNumber(byte[] data) {
         if (data == null || data.length < 10) {
-            Log.d(TAG, "extractCardNumber: data too short");
+            ReaderLog.d(TAG, "extractCardNumber: data too short");
             return null;
         }
 
@@ -122,24 +135,25 @@ public class EZLParser implements CardParser {
         // Status Word 확인
         int sw1 = data[data.length - 2] & 0xFF;
         int sw2 = data[data.length - 1] & 0xFF;
-        Log.d(TAG, "extractCardNumber: SW=" + String.format("%02X%02X", sw1, sw2));
+        ReaderLog.d(TAG, () -> "extractCardNumber: SW=" + String.format("%02X%02X", sw1, sw2));
 
         if (sw1 != 0x90 || sw2 != 0x00) {
-            Log.d(TAG, "extractCardNumber: Invalid status word");
+            ReaderLog.d(TAG, "extractCardNumber: Invalid status word");
             return null;
         }
 
         // FCI 응답 확인 (6F 태그)
         if (length >= 16 && (data[0] & 0xFF) == 0x6F) {
-            Log.d(TAG, "extractCardNumber: FCI response detected");
+            ReaderLog.d(TAG, "extractCardNumber: FCI response detected");
             // Offset 8에서 BCD 카드번호 추출 및 포맷팅
-            String cardNum = formatBcdCardNumber(data, 8, 8);
-            if (isValidCardNumber(cardNum)) {
-                Log.i(TAG, "Card number found at FCI offset 8: " + cardNum);
-                return cardNum;
+            long cardNum = ApduCodec.decodeBcdCardNumber(data, 8, 8);
+            if (ApduCodec.isValidCardNumber(cardNum)) {
+                String formatted = ApduCodec.formatCardNumber(cardNum);
+                ReaderLog.i(TAG, () -> "Card number found at FCI offset 8: " + formatted);
+                return formatted;
             }
         } else {
-            Log.d(TAG, "extractCardNumber: Not a valid FCI response (tag=0x" +
+            ReaderLog.d(TAG, () -> "extractCardNumber: Not a valid FCI response (tag=0x" +
                     String.format("%02X", data[0] & 0xFF) + ")");
         }
 
@@ -148,72 +162,61 @@ public class EZLParser implements CardParser {
 
     // ===== 거래내역 읽기 =====
 
-    private List<Transaction> readTransactionHistory(IsoDep isoDep) {
-        List<Transaction> transactions = new ArrayList<>();
-        Log.d(TAG, "=== readTransactionHistory ===");
+    private List<Transaction> readTransactionHistory(CardSession session) throws TagLostException {
+        ReaderLog.d(TAG, "=== readTransactionHistory ===");
 
-        // SFI 4에서 모든 거래 읽기
-        for (int record = 1; record <= 10; record++) {
-            try {
-                byte[] cmd = {0x00, (byte) 0xB2, (byte) record, P2_BALANCE_RECORD, LE_RECORD};
-                byte[] response = isoDep.transceive(cmd);
+        // SFI 4에서 모든 거래 읽기 (레코드는 받는 대로 디코딩 스레드로 넘어감)
+        RecordReader.readRecords(session, CardType.EZL,
+                P2_BALANCE_RECORD, MAX_RECORDS, LE_RECORD, this::decodeRecord);
 
-                Log.i(TAG, "SFI4 Record " + record + ": " + bytesToHex(response));
+        List<Transaction> transactions = session.getDecodePipeline().await();
+        ReaderLog.i(TAG, () -> "Found " + transactions.size() + " transactions");
+        return transactions;
+    }
 
-                Transaction tx = parseBalanceRecord(response);
+    /**
+     * 디코딩 스레드에서 호출
+     */
+    private Transaction decodeRecord(byte[] response) {
+        ReaderLog.apdu(TAG, "SFI4 Record: ", response);
 
-                if (tx != null) {
-                    transactions.add(tx);
-                    Log.i(TAG, String.format("Transaction: %s | %s | %d원 | 잔액: %d원",
-                            tx.getDate(), tx.getLocation(), tx.getAmount(), tx.getBalanceAfter()));
-                } else if (response != null && response.length >= 2) {
-                    int sw1 = response[response.length - 2] & 0xFF;
-                    if (sw1 == 0x6A) break;  // No more records
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error reading record " + record, e);
-                break;
-            }
+        Transaction tx = parseBalanceRecord(response);
+        if (tx != null && ReaderLog.isLoggable(ReaderLog.INFO)) {
+            ReaderLog.i(TAG, String.format("Transaction: %s | %s | %d원 | 잔액: %d원",
+                    tx.getDate(), tx.getLocation(), tx.getAmount(), tx.getBalanceAfter()));
         }
-
-        Log.i(TAG, "Found " + transactions.size() + " transactions");
-        return transactions;
+        return tx;
     }
 
     /**
      * 거래내역 파싱
      * Offset 0:     거래 타입 (0x01=사용, 0x02=충전)
      * Offset 4-5:   잔액 (2 bytes, Big Endian)
+     * Offset 6-9:   거래 일련번호 (4 bytes, Big Endian)
      * Offset 12-13: 거래 금액 (2 bytes, Big Endian)
      */
-    private Transaction parseBalanceRecord(byte[] data) {
+    Transaction parseBalanceRecord(byte[] data) {
         if (data == null || data.length < 20) return null;
 
-        int sw1 = data[data.length - 2] & 0xFF;
-        int sw2 = data[data.length - 1] & 0xFF;
-        if (sw1 != 0x90 || sw2 != 0x00) return null;
+        if (!ApduCodec.isSuccess(data)) return null;
 
         int dataLength = data.length - 2;
 
         // 빈 레코드 체크
-        boolean isEmpty = true;
-        for (int i = 0; i < Math.min(16, dataLength); i++) {
-            if (data[i] != 0 && (data[i] & 0xFF) != 0xFF) {
-                isEmpty = false;
-                break;
-            }
-        }
-        if (isEmpty) return null;
+        if (ApduCodec.isBlank(data, 0, Math.min(16, dataLength))) return null;
 
         try {
             // offset 0: 거래 타입
             int recordType = data[0] & 0xFF;
 
             // offset 4-5: 거래 후 잔액
-            int balance = ((data[4] & 0xFF) << 8) | (data[5] & 0xFF);
+            int balance = ApduCodec.getUnsignedShort(data, 4);
+
+            // offset 6-9: 거래 일련번호 (같은 거래인지 구분하는 키)
+            int sequence = ApduCodec.getInt(data, 6);
 
             // offset 12-13: 거래 금액
-            int amount = ((data[12] & 0xFF) << 8) | (data[13] & 0xFF);
+            int amount = ApduCodec.getUnsignedShort(data, 12);
 
             // 유효성 검사
             if (balance < 0 || balance > 500000) return null;
@@ -232,88 +235,13 @@ public class EZLParser implements CardParser {
             }
 
             // 날짜는 카드에 없음
-            return new Transaction("", location, amount, balance, txType);
+            Transaction transaction = new Transaction("", location, amount, balance, txType);
+            transaction.setSequence(sequence);
+            return transaction;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error parsing balance record", e);
+            ReaderLog.e(TAG, "Error parsing balance record", e);
             return null;
         }
     }
-
-    // ===== 유틸리티 메서드 =====
-
-    private boolean isSuccess(byte[] response) {
-        if (response == null || response.length < 2) return false;
-        return (response[response.length - 2] & 0xFF) == 0x90 &&
-                (response[response.length - 1] & 0xFF) == 0x00;
-    }
-
-    /**
-     * 카드번호 유효성 검사
-     */
-    private boolean isValidCardNumber(String cardNum) {
-        if (cardNum == null) return false;
-        String digits = cardNum.replace(" ", "");
-        if (digits.length() < 16) return false;
-        // 숫자만 있는지 확인
-        for (char c : digits.toCharArray()) {
-            if (c < '0' || c > '9') return false;
-        }
-        // 모두 0인지 확인
-        for (char c : digits.toCharArray()) {
-            if (c != '0') return true;
-        }
-        return false;
-    }
-
-    /**
-     * BCD 형식 카드번호 포맷팅
-     */
-    private String formatBcdCardNumber(byte[] data, int offset, int len) {
-        if (offset + len > data.length) {
-            Log.w(TAG, "formatBcdCardNumber: offset + len exceeds data length");
-            return null;
-        }
-
-        StringBuilder sb = new StringBuilder();
-        Log.d(TAG, "formatBcdCardNumber: offset=" + offset + ", len=" + len);
-
-        for (int i = 0; i < len; i++) {
-            int high = (data[offset + i] >> 4) & 0x0F;
-            int low = data[offset + i] & 0x0F;
-
-            Log.d(TAG, "  Byte[" + i + "]=0x" + String.format("%02X", data[offset + i]) +
-                    " -> high=" + high + ", low=" + low);
-
-            // BCD 유효성 검사
-            if (high > 9 || low > 9) {
-                Log.w(TAG, "formatBcdCardNumber: Invalid BCD at byte " + i);
-                return null;
-            }
-
-            sb.append(high).append(low);
-        }
-
-        String raw = sb.toString();
-        Log.d(TAG, "formatBcdCardNumber: raw=" + raw + " (length=" + raw.length() + ")");
-
-        if (raw.length() >= 16) {
-            String formatted = raw.substring(0, 4) + " " + raw.substring(4, 8) + " " +
-                    raw.substring(8, 12) + " " + raw.substring(12, 16);
-            Log.i(TAG, "formatBcdCardNumber: formatted=" + formatted);
-            return formatted;
-        }
-
-        Log.w(TAG, "formatBcdCardNumber: raw length < 16, cannot format");
-        return null;
-    }
-
-    private String bytesToHex(byte[] bytes) {
-        if (bytes == null) return "";
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X", b));
-        }
-        return sb.toString();
-    }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package com.transitcard.reader;
 
-import android.nfc.tech.IsoDep;
-import android.util.Log;
+import android.nfc.TagLostException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,318 +19,283 @@ public class HanpayParser implements CardParser {
     private static final byte P2_BALANCE_RECORD = 0x24;
     private static final byte P2_TRANS_RECORD = 0x1C;
     private static final byte LE_RECORD = 0x1A;  // 26 bytes
+    private static final int MAX_RECORDS = 10;
+    private static final int PROGRESS_KEY_HISTORY = 0x904E;  // 90 4E 응답 (ReadProgress 구분용)
+
+    // 거래내역 읽기 시도 순서 (발급사별로 성공한 방법이 있으면 그것부터)
+    private static final HistoryStrategyCache.Strategy[] STRATEGY_ORDER = {
+            HistoryStrategyCache.Strategy.TRANS_RECORD,
+            HistoryStrategyCache.Strategy.BALANCE_RECORD,
+            HistoryStrategyCache.Strategy.HISTORY_COMMAND
+    };
 
     @Override
-    public TransitCardData parse(IsoDep isoDep, byte[] cardId) {
+    public TransitCardData parse(CardSession session) throws TagLostException {
+        ApduChannel channel = session.getChannel();
+        byte[] cardId = session.getCardId();
+        ReadProgress progress = session.getProgress();
         try {
-            int balance = readBalance(isoDep);
-            String cardNumber = readCardNumber(isoDep);
-            if (cardNumber == null || cardNumber.isEmpty()) {
-                cardNumber = bytesToHex(cardId);
+            // 이전 태그에서 이미 읽었으면 다시 읽지 않음
+            if (progress.getBalance() == null) {
+                progress.setBalance(readBalance(channel));
+            }
+            int balance = progress.getBalance();
+            session.publishBalance(balance);
+
+            if (progress.getCardNumber() == null) {
+                String cardNumber = readCardNumber(channel, session.getTlvIndex());
+                if (cardNumber == null || cardNumber.isEmpty()) {
+                    cardNumber = ApduCodec.toHex(cardId);
+                }
+                progress.setCardNumber(cardNumber);
             }
-            List<Transaction> transactions = readTransactionHistory(isoDep);
+            String cardNumber = progress.getCardNumber();
+            session.publishCardNumber(cardNumber);
+
+            List<Transaction> transactions = readTransactionHistory(session, cardNumber);
 
             return new TransitCardData(CardType.HANPAY, cardNumber, balance, transactions);
+        } catch (TagLostException e) {
+            // 중간까지 읽은 상태는 progress에 남아 있음 → NFCReader가 보관 후 다시 태그하면 이어 읽음
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "Error parsing Hanpay card", e);
-            return new TransitCardData(CardType.HANPAY, bytesToHex(cardId), 0, new ArrayList<>());
+            ReaderLog.e(TAG, "Error parsing Hanpay card", e);
+            return null;
         }
     }
 
-    private int readBalance(IsoDep isoDep) {
+    private int readBalance(ApduChannel channel) throws TagLostException {
         try {
-            byte[] response = isoDep.transceive(CMD_BALANCE);
-            Log.d(TAG, "Balance response: " + bytesToHex(response));
+            byte[] response = channel.transceive(CMD_BALANCE);
+            ReaderLog.apdu(TAG, "Balance response: ", response);
 
-            if (response.length >= 6 && isSuccess(response)) {
-                int balance = getInt(response, 0);
-                Log.i(TAG, "Balance: " + balance + "원");
+            if (response.length >= 6 && ApduCodec.isSuccess(response)) {
+                int balance = ApduCodec.getInt(response, 0);
+                ReaderLog.i(TAG, () -> "Balance: " + balance + "원");
                 return balance;
             }
             return 0;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "readBalance error", e);
+            ReaderLog.e(TAG, "readBalance error", e);
             return 0;
         }
     }
 
-    private String readCardNumber(IsoDep isoDep) {
-        Log.d(TAG, "=== readCardNumber ===");
+    private String readCardNumber(ApduChannel channel, TlvIndex tlv) throws TagLostException {
+        ReaderLog.d(TAG, "=== readCardNumber ===");
 
         // CARDINFO_HANPAY 명령 (SELECT)
         try {
-            Log.d(TAG, "Trying CARDINFO: " + bytesToHex(CMD_CARDINFO));
-            byte[] response = isoDep.transceive(CMD_CARDINFO);
-            Log.d(TAG, "CARDINFO response: " + bytesToHex(response));
+            ReaderLog.apdu(TAG, "Trying CARDINFO: ", CMD_CARDINFO);
+            byte[] response = channel.transceive(CMD_CARDINFO);
+            ReaderLog.apdu(TAG, "CARDINFO response: ", response);
 
-            String cardNum = processSelectResponse(response, isoDep);
+            String cardNum = processCardNumberResponse(response, tlv);
             if (cardNum != null) return cardNum;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.d(TAG, "CARDINFO failed: " + e.getMessage());
+            ReaderLog.d(TAG, () -> "CARDINFO failed: " + e.getMessage());
         }
 
         // GET DATA (90 4A)
         try {
             byte[] cmd = {(byte) 0x90, 0x4A, 0x00, 0x00, 0x00};
-            byte[] response = isoDep.transceive(cmd);
-            Log.d(TAG, "GET DATA response: " + bytesToHex(response));
+            byte[] response = channel.transceive(cmd);
+            ReaderLog.apdu(TAG, "GET DATA response: ", response);
 
-            String cardNum = processGetDataResponse(response, isoDep);
+            String cardNum = processCardNumberResponse(response, tlv);
             if (cardNum != null) return cardNum;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.d(TAG, "GET DATA failed: " + e.getMessage());
+            ReaderLog.d(TAG, () -> "GET DATA failed: " + e.getMessage());
         }
 
         // SFI 2 Record 1 (T-money 호환)
         try {
             byte[] cmd = {0x00, (byte) 0xB2, 0x01, 0x14, 0x33};
-            byte[] response = isoDep.transceive(cmd);
-            Log.d(TAG, "SFI2 response: " + bytesToHex(response));
+            byte[] response = channel.transceive(cmd);
+            ReaderLog.apdu(TAG, "SFI2 response: ", response);
 
-            String cardNum = processRecordResponse(response, isoDep, 0x14);
+            String cardNum = processCardNumberResponse(response, tlv);
             if (cardNum != null) return cardNum;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.d(TAG, "SFI2 failed: " + e.getMessage());
+            ReaderLog.d(TAG, () -> "SFI2 failed: " + e.getMessage());
         }
 
-        Log.w(TAG, "Card number not found");
-        return null;
-    }
-
-    private String processSelectResponse(byte[] response, IsoDep isoDep) throws Exception {
-        if (response == null || response.length < 2) return null;
-
-        int sw1 = response[response.length - 2] & 0xFF;
-        int sw2 = response[response.length - 1] & 0xFF;
-
-        if (sw1 == 0x90 && sw2 == 0x00) {
-            String cardNum = findCardNumber(response, response.length - 2);
-            if (cardNum != null) {
-                Log.i(TAG, "Card number: " + cardNum);
-                return cardNum;
-            }
-        } else if (sw1 == 0x61 && sw2 > 0) {
-            // GET RESPONSE 필요
-            byte[] getResp = {0x00, (byte) 0xC0, 0x00, 0x00, (byte) sw2};
-            response = isoDep.transceive(getResp);
-            Log.d(TAG, "GET RESPONSE: " + bytesToHex(response));
-            if (response != null && response.length > 2 && isSuccess(response)) {
-                String cardNum = findCardNumber(response, response.length - 2);
-                if (cardNum != null) {
-                    Log.i(TAG, "Card number (GET RESPONSE): " + cardNum);
-                    return cardNum;
-                }
-            }
-        }
+        ReaderLog.w(TAG, "Card number not found");
         return null;
     }
 
-    private String processGetDataResponse(byte[] response, IsoDep isoDep) throws Exception {
-        if (response == null || response.length < 2) return null;
+    /**
+     * 카드번호 응답 처리 (61xx / 6Cxx 는 ApduChannel이 이미 처리함)
+     */
+    private String processCardNumberResponse(byte[] response, TlvIndex tlv) {
+        if (!ApduCodec.isSuccess(response)) return null;
 
-        int sw1 = response[response.length - 2] & 0xFF;
-        int sw2 = response[response.length - 1] & 0xFF;
-
-        if (sw1 == 0x90 && sw2 == 0x00) {
-            String cardNum = findCardNumber(response, response.length - 2);
-            if (cardNum != null) return cardNum;
-        } else if (sw1 == 0x6C && sw2 > 0) {
-            byte[] retryCmd = {(byte) 0x90, 0x4A, 0x00, 0x00, (byte) sw2};
-            response = isoDep.transceive(retryCmd);
-            if (response != null && response.length > 2 && isSuccess(response)) {
-                String cardNum = findCardNumber(response, response.length - 2);
-                if (cardNum != null) return cardNum;
-            }
+        String cardNum = findCardNumber(response, response.length - 2, tlv);
+        if (cardNum != null) {
+            ReaderLog.i(TAG, () -> "Card number: " + cardNum);
         }
-        return null;
+        return cardNum;
     }
 
-    private String processRecordResponse(byte[] response, IsoDep isoDep, int p2) throws Exception {
-        if (response == null || response.length < 2) return null;
-
-        int sw1 = response[response.length - 2] & 0xFF;
-        int sw2 = response[response.length - 1] & 0xFF;
-
-        if (sw1 == 0x90 && sw2 == 0x00) {
-            String cardNum = findCardNumber(response, response.length - 2);
-            if (cardNum != null) return cardNum;
-        } else if (sw1 == 0x6C && sw2 > 0) {
-            byte[] retryCmd = {0x00, (byte) 0xB2, 0x01, (byte) p2, (byte) sw2};
-            response = isoDep.transceive(retryCmd);
-            if (response != null && response.length > 2 && isSuccess(response)) {
-                String cardNum = findCardNumber(response, response.length - 2);
-                if (cardNum != null) return cardNum;
-            }
-        }
-        return null;
-    }
-
-    private String findCardNumber(byte[] data, int length) {
+    String findCardNumber(byte[] data, int length, TlvIndex tlv) {
         if (length < 8) return null;
 
         // FCI Template (6F) 응답인 경우: offset 8에서 카드번호 추출
-        if (length >= 16 && (data[0] & 0xFF) == 0x6F) {
-            String cardNum = formatBcdCardNumber(data, 8, 8);
-            if (isValidCardNumber(cardNum)) {
-                Log.d(TAG, "Card number found at FCI offset 8: " + cardNum);
-                return cardNum;
+        if (length >= 16 && (data[0] & 0xFF) == TlvIndex.TAG_FCI) {
+            long cardNum = ApduCodec.decodeBcdCardNumber(data, 8, 8);
+            if (ApduCodec.isValidCardNumber(cardNum)) {
+                String formatted = ApduCodec.formatCardNumber(cardNum);
+                ReaderLog.d(TAG, () -> "Card number found at FCI offset 8: " + formatted);
+                return formatted;
             }
         }
 
-        // TLV 태그 검색 (5A, 57)
-        for (int i = 0; i < length - 2; i++) {
-            int tag = data[i] & 0xFF;
-            if (tag == 0x5A && i + 1 < length) {
-                int len = data[i + 1] & 0xFF;
-                if (len > 0 && len <= 10 && i + 2 + len <= length) {
-                    String cardNum = formatBcdCardNumber(data, i + 2, len);
-                    if (isValidCardNumber(cardNum)) return cardNum;
-                }
-            }
-            if (tag == 0x57 && i + 1 < length) {
-                int len = data[i + 1] & 0xFF;
-                if (len > 0 && len <= 19 && i + 2 + len <= length) {
-                    String cardNum = formatTrack2CardNumber(data, i + 2, len);
-                    if (isValidCardNumber(cardNum)) return cardNum;
-                }
-            }
-        }
+        // TLV 태그 (5A, 57, 8바이트 BCD 값)
+        tlv.parse(data, 0, length);
+        long cardNum = tlv.findCardNumber();
+        if (ApduCodec.isValidCardNumber(cardNum)) return ApduCodec.formatCardNumber(cardNum);
 
-        // BCD 16자리 패턴 검색 (모든 nibble이 0-9인 경우만)
-        for (int i = 0; i <= length - 8; i++) {
-            if (isValidBcdBlock(data, i, 8)) {
-                String cardNum = formatBcdCardNumber(data, i, 8);
-                if (isValidCardNumber(cardNum)) return cardNum;
+        // TLV가 아닌 응답 (레코드 원본) 만 BCD 16자리 패턴 검색 (모든 nibble이 0-9인 경우만)
+        if (!tlv.isComplete()) {
+            for (int i = 0; i <= length - 8; i++) {
+                cardNum = ApduCodec.decodeBcdCardNumber(data, i, 8);
+                if (ApduCodec.isValidCardNumber(cardNum)) return ApduCodec.formatCardNumber(cardNum);
             }
         }
 
         return null;
     }
 
-    private boolean isValidBcdBlock(byte[] data, int offset, int len) {
-        for (int i = 0; i < len && offset + i < data.length; i++) {
-            int high = (data[offset + i] >> 4) & 0x0F;
-            int low = data[offset + i] & 0x0F;
-            if (high > 9 || low > 9) return false;
+    private List<Transaction> readTransactionHistory(CardSession session, String cardNumber)
+            throws TagLostException {
+        DecodePipeline pipeline = session.getDecodePipeline();
+        List<Transaction> transactions = new ArrayList<>();
+        ReaderLog.d(TAG, "=== readTransactionHistory ===");
+
+        HistoryStrategyCache strategies = session.getHistoryStrategies();
+        HistoryStrategyCache.Entry learned = strategies != null
+                ? strategies.get(CardType.HANPAY, cardNumber) : null;
+        if (learned != null) {
+            session.setHistoryLayout(learned.layout);
         }
-        return true;
-    }
 
-    private List<Transaction> readTransactionHistory(IsoDep isoDep) {
-        List<Transaction> transactions = new ArrayList<>();
-        Log.d(TAG, "=== readTransactionHistory ===");
-
-        // TRANS_RECORD (SFI 3)
-        for (int record = 1; record <= 10; record++) {
-            try {
-                byte[] cmd = {0x00, (byte) 0xB2, (byte) record, P2_TRANS_RECORD, LE_RECORD};
-                byte[] response = isoDep.transceive(cmd);
-
-                Transaction tx = processTransactionResponse(response, isoDep, cmd);
-                if (tx != null) {
-                    transactions.add(tx);
-                } else if (response != null && response.length >= 2) {
-                    int sw1 = response[response.length - 2] & 0xFF;
-                    if (sw1 == 0x6A) break;
+        for (HistoryStrategyCache.Strategy strategy : HistoryStrategyCache.order(STRATEGY_ORDER, learned)) {
+            // 응답은 받는 대로 디코딩 스레드로 넘어가고, 다음 방법을 정하기 전에 결과를 기다림
+            readTransactions(session, strategy);
+            transactions = pipeline.await();
+            if (!transactions.isEmpty()) {
+                if (strategies != null) {
+                    strategies.put(CardType.HANPAY, cardNumber, strategy, session.getHistoryLayout());
                 }
-            } catch (Exception e) {
                 break;
             }
         }
 
-        // BALANCE_RECORD (SFI 4)
-        if (transactions.isEmpty()) {
-            for (int record = 1; record <= 10; record++) {
-                try {
-                    byte[] cmd = {0x00, (byte) 0xB2, (byte) record, P2_BALANCE_RECORD, LE_RECORD};
-                    byte[] response = isoDep.transceive(cmd);
-
-                    Transaction tx = processTransactionResponse(response, isoDep, cmd);
-                    if (tx != null) {
-                        transactions.add(tx);
-                    } else if (response != null && response.length >= 2) {
-                        int sw1 = response[response.length - 2] & 0xFF;
-                        if (sw1 == 0x6A) break;
-                    }
-                } catch (Exception e) {
-                    break;
-                }
-            }
+        int found = transactions.size();
+        ReaderLog.i(TAG, () -> "Found " + found + " transactions");
+        return transactions;
+    }
+
+    private void readTransactions(CardSession session, HistoryStrategyCache.Strategy strategy)
+            throws TagLostException {
+        switch (strategy) {
+            case TRANS_RECORD:
+                readRecordTransactions(session, P2_TRANS_RECORD);
+                break;
+            case BALANCE_RECORD:
+                readRecordTransactions(session, P2_BALANCE_RECORD);
+                break;
+            case HISTORY_COMMAND:
+                readHistoryTransactions(session);
+                break;
         }
+    }
 
-        // T-money 스타일 (90 4E)
-        if (transactions.isEmpty()) {
-            for (int i = 1; i <= 10; i++) {
+    /**
+     * 90 4E (T-money 스타일) 명령으로 거래내역 읽기
+     * 받은 응답은 ReadProgress에 쌓아 두고, 이어 읽을 때는 다음 번호부터 요청
+     */
+    private void readHistoryTransactions(CardSession session) throws TagLostException {
+        List<byte[]> responses = session.getProgress().getResponses(PROGRESS_KEY_HISTORY);
+
+        for (int i = 1; i <= 10; i++) {
+            byte[] response;
+            if (i <= responses.size()) {
+                response = responses.get(i - 1);  // 이전 태그에서 받은 응답
+            } else {
                 try {
                     byte[] cmd = {(byte) 0x90, 0x4E, 0x00, (byte) i, 0x00};
-                    byte[] response = isoDep.transceive(cmd);
-
-                    Transaction tx = processTransactionResponse(response, isoDep, cmd);
-                    if (tx != null) {
-                        transactions.add(tx);
-                    } else if (response != null && response.length >= 2) {
-                        int sw1 = response[response.length - 2] & 0xFF;
-                        if (sw1 != 0x90 && sw1 != 0x6C) break;
-                    }
+                    response = session.getChannel().transceive(cmd);
+                } catch (TagLostException e) {
+                    throw e;
                 } catch (Exception e) {
                     break;
                 }
+                responses.add(response);
             }
-        }
 
-        Log.i(TAG, "Found " + transactions.size() + " transactions");
-        return transactions;
-    }
+            // 빈 응답이 나오면 이후 번호도 비어 있음
+            if (ApduCodec.isSuccess(response) && ApduCodec.isBlankRecord(response)) break;
+            // 90xx 이외의 응답은 거래가 아니므로 디코딩 없이 종료
+            if (response != null && response.length >= 2
+                    && (response[response.length - 2] & 0xFF) != 0x90) break;
 
-    private Transaction processTransactionResponse(byte[] response, IsoDep isoDep, byte[] cmd) throws Exception {
-        if (response == null || response.length < 2) return null;
+            session.getDecodePipeline().submit(response, data -> processTransactionResponse(session, data));
+        }
+    }
 
-        int sw1 = response[response.length - 2] & 0xFF;
-        int sw2 = response[response.length - 1] & 0xFF;
+    /**
+     * 레코드 파일(SFI)에서 거래내역 읽기
+     */
+    private void readRecordTransactions(CardSession session, byte p2) throws TagLostException {
+        RecordReader.readRecords(session, CardType.HANPAY,
+                p2, MAX_RECORDS, LE_RECORD, response -> processTransactionResponse(session, response));
+    }
 
-        if (sw1 == 0x90 && sw2 == 0x00 && response.length >= 10) {
-            return parseTransaction(response, response.length - 2);
-        } else if (sw1 == 0x6C && sw2 > 0) {
-            byte[] retryCmd = cmd.clone();
-            retryCmd[retryCmd.length - 1] = (byte) sw2;
-            response = isoDep.transceive(retryCmd);
-            if (response != null && response.length >= 10 && isSuccess(response)) {
-                return parseTransaction(response, response.length - 2);
-            }
-        }
-        return null;
+    private Transaction processTransactionResponse(CardSession session, byte[] response) {
+        if (!ApduCodec.isSuccess(response) || response.length < 10) return null;
+        return parseTransaction(session, response, response.length - 2);
     }
 
-    private Transaction parseTransaction(byte[] data, int length) {
+    Transaction parseTransaction(CardSession session, byte[] data, int length) {
         if (length < 8) return null;
 
-        boolean isEmpty = true;
-        for (int i = 0; i < Math.min(8, length); i++) {
-            if (data[i] != 0 && (data[i] & 0xFF) != 0xFF) {
-                isEmpty = false;
-                break;
-            }
-        }
-        if (isEmpty) return null;
+        if (ApduCodec.isBlank(data, 0, Math.min(8, length))) return null;
 
-        if (length >= 13) {
-            int txType = data[0] & 0xFF;
-            String date = parseBcdDate(data, 1);
-            int amount = getInt(data, 5);
-            int balance = getInt(data, 9);
+        if (length < 13) return null;
 
-            if (isValidAmount(amount) && isValidAmount(balance)) {
-                return createTransaction(txType, date, amount, balance);
-            }
+        int amount = ApduCodec.getInt(data, 5);
+        int balance = ApduCodec.getInt(data, 9);
+        if (!isValidAmount(amount) || !isValidAmount(balance)) return null;
 
-            date = parseBcdDate(data, 0);
-            txType = data[4] & 0xFF;
-            if (isValidAmount(amount) && isValidAmount(balance)) {
-                return createTransaction(txType, date, amount, balance);
+        // 이 발급사의 레이아웃을 알고 있으면 그대로 사용
+        HistoryStrategyCache.Layout layout = session.getHistoryLayout();
+        if (layout != null) {
+            return createTransaction(layout, data, amount, balance);
+        }
+
+        // 날짜가 올바르게 읽히는 레이아웃을 찾아 기억 (이후 레코드 / 같은 발급사 카드에 사용)
+        for (HistoryStrategyCache.Layout candidate : HistoryStrategyCache.Layout.values()) {
+            if (!ApduCodec.parseBcdDate(data, candidate.dateOffset).isEmpty()) {
+                session.setHistoryLayout(candidate);
+                return createTransaction(candidate, data, amount, balance);
             }
         }
+        return createTransaction(HistoryStrategyCache.Layout.TYPE_FIRST, data, amount, balance);
+    }
 
-        return null;
+    private Transaction createTransaction(HistoryStrategyCache.Layout layout, byte[] data,
+                                          int amount, int balance) {
+        return createTransaction(data[layout.typeOffset] & 0xFF,
+                ApduCodec.parseBcdDate(data, layout.dateOffset), amount, balance);
     }
 
     private Transaction createTransaction(int txType, String date, int amount, int balance) {
@@ -351,81 +315,7 @@ public class HanpayParser implements CardParser {
 
     // ===== 유틸리티 =====
 
-    private boolean isSuccess(byte[] response) {
-        return response != null && response.length >= 2 &&
-               (response[response.length - 2] & 0xFF) == 0x90 &&
-               (response[response.length - 1] & 0xFF) == 0x00;
-    }
-
-    private int getInt(byte[] data, int offset) {
-        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) |
-               ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
-    }
-
     private boolean isValidAmount(int amount) {
         return amount > 0 && amount <= 500000;
     }
-
-    private boolean isValidCardNumber(String cardNum) {
-        if (cardNum == null) return false;
-        String digits = cardNum.replace(" ", "");
-        if (digits.length() < 16) return false;
-        for (char c : digits.toCharArray()) {
-            if (c < '0' || c > '9') return false;
-        }
-        for (char c : digits.toCharArray()) {
-            if (c != '0') return true;
-        }
-        return false;
-    }
-
-    private String formatBcdCardNumber(byte[] data, int offset, int len) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < len && offset + i < data.length; i++) {
-            int high = (data[offset + i] >> 4) & 0x0F;
-            int low = data[offset + i] & 0x0F;
-            if (high <= 9) sb.append(high);
-            if (low <= 9) sb.append(low);
-        }
-        String raw = sb.toString();
-        if (raw.length() >= 16) {
-            return raw.substring(0, 4) + " " + raw.substring(4, 8) + " " +
-                   raw.substring(8, 12) + " " + raw.substring(12, 16);
-        }
-        return null;
-    }
-
-    private String formatTrack2CardNumber(byte[] data, int offset, int len) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < len && offset + i < data.length; i++) {
-            int high = (data[offset + i] >> 4) & 0x0F;
-            int low = data[offset + i] & 0x0F;
-            if (high == 0x0D || high == 0x0F) break;
-            if (high <= 9) sb.append(high);
-            if (low == 0x0D || low == 0x0F) break;
-            if (low <= 9) sb.append(low);
-        }
-        String raw = sb.toString();
-        if (raw.length() >= 16) {
-            return raw.substring(0, 4) + " " + raw.substring(4, 8) + " " +
-                   raw.substring(8, 12) + " " + raw.substring(12, 16);
-        }
-        return null;
-    }
-
-    private String parseBcdDate(byte[] data, int offset) {
-        if (offset + 4 > data.length) return "";
-        int yy = ((data[offset] >> 4) & 0x0F) * 10 + (data[offset] & 0x0F);
-        int mm = ((data[offset + 1] >> 4) & 0x0F) * 10 + (data[offset + 1] & 0x0F);
-        int dd = ((data[offset + 2] >> 4) & 0x0F) * 10 + (data[offset + 2] & 0x0F);
-        int hh = ((data[offset + 3] >> 4) & 0x0F) * 10 + (data[offset + 3] & 0x0F);
-        if (mm < 1 || mm > 12 || dd < 1 || dd > 31 || hh > 23) return "";
-        return String.format("%02d/%02d/%02d %02d:00", yy, mm, dd, hh);
-    }
-
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) sb.append(String.format("%02X", b));
-        return sb.toString();
-    }
 }
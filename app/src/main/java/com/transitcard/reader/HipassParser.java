@@ -1,7 +1,6 @@
 package com.transitcard.reader;
 
-import android.nfc.tech.IsoDep;
-import android.util.Log;
+import android.nfc.TagLostException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -10,11 +9,7 @@ public class HipassParser implements CardParser {
     private static final String TAG = "HipassParser";
 
     // Secondary AID 선택 명령어
-    private static final byte[] CMD_SELECT_SECONDARY_AID = {
-            0x00, (byte) 0xA4, 0x04, 0x00, 0x07,
-            (byte) 0xA0, 0x00, 0x00, 0x02, 0x45, 0x00, 0x01,
-            0x00
-    };
+    private static final byte[] SECONDARY_AID = {(byte) 0xA0, 0x00, 0x00, 0x02, 0x45, 0x00, 0x01};
 
     // 하이패스 명령어
     private static final byte[] CMD_BALANCE_HIPASS = {(byte) 0x90, 0x5C, 0x00, 0x00, 0x04};
@@ -23,177 +18,174 @@ public class HipassParser implements CardParser {
     // 거래내역 SFI 값들
     private static final byte[] SFI_VALUES = {0x14, 0x1C, 0x24, 0x2C, 0x34};
     private static final byte LE_RECORD = 0x24;  // 36 bytes
+    private static final int MAX_RECORDS = 10;
 
-    private byte[] secondaryAidResponse = null;
+    // FCI 안의 카드번호 태그 (8바이트 BCD)
+    private static final int TAG_CARD_NUMBER = 0x13;
 
     @Override
-    public TransitCardData parse(IsoDep isoDep, byte[] cardId) {
-        return parse(isoDep, cardId, null);
-    }
-
-    public TransitCardData parse(IsoDep isoDep, byte[] cardId, byte[] primaryFci) {
+    public TransitCardData parse(CardSession session) throws TagLostException {
+        ApduChannel channel = session.getChannel();
+        byte[] cardId = session.getCardId();
+        ReadProgress progress = session.getProgress();
+        byte[] primaryFci = session.getFci();
         try {
-            // 1. Primary FCI에서 카드번호 추출
-            String cardNumber = null;
-            if (primaryFci != null) {
-                cardNumber = extractCardNumberFromFCI(primaryFci);
-                if (cardNumber != null) {
-                    Log.i(TAG, "Card number found from primary FCI: " + cardNumber);
+            // 1. Secondary AID 선택 (잔액/거래내역 읽기 필요)
+            selectSecondaryAid(session);
+
+            // 2. 잔액을 먼저 읽어 바로 전달 (카드번호 / 거래내역보다 먼저 화면에 표시)
+            //    이전 태그에서 이미 읽었으면 다시 읽지 않음
+            if (progress.getBalance() == null) {
+                progress.setBalance(readBalance(channel));
+            }
+            int balance = progress.getBalance();
+            session.publishBalance(balance);
+
+            // 3. Primary FCI에서 카드번호 추출 (이전 태그에서 찾았으면 그대로 사용)
+            String cardNumber = progress.getCardNumber();
+            if (cardNumber == null && primaryFci != null) {
+                cardNumber = extractCardNumberFromFCI(primaryFci, session.getTlvIndex());
+                if (cardNumber != null && ReaderLog.isLoggable(ReaderLog.INFO)) {
+                    ReaderLog.i(TAG, "Card number found from primary FCI: " + cardNumber);
                 }
             }
 
-            // 2. Secondary AID 선택 (잔액/거래내역 읽기 필요)
-            selectSecondaryAid(isoDep);
-
-            // 3. Secondary AID 응답에서 카드번호 추출 시도
+            // 4. Secondary AID 응답에서 카드번호 추출 시도
             if (cardNumber == null) {
-                cardNumber = readCardNumberFromSecondaryAid();
+                cardNumber = readCardNumberFromSecondaryAid(session);
             }
 
-            // 4. CARDINFO 명령으로 시도
+            // 5. CARDINFO 명령으로 시도
             if (cardNumber == null) {
-                cardNumber = readCardNumberFromCardInfo(isoDep);
+                cardNumber = readCardNumberFromCardInfo(channel);
             }
 
-            // 5. 최종적으로 Card ID 사용
+            // 6. 최종적으로 Card ID 사용
             if (cardNumber == null) {
-                cardNumber = bytesToHex(cardId);
-                Log.w(TAG, "Using Card ID as card number");
+                cardNumber = ApduCodec.toHex(cardId);
+                ReaderLog.w(TAG, "Using Card ID as card number");
             }
+            progress.setCardNumber(cardNumber);
+            session.publishCardNumber(cardNumber);
 
-            // 잔액 및 거래내역 읽기
-            int balance = readBalance(isoDep);
-            List<Transaction> transactions = readTransactionHistory(isoDep);
+            // 거래내역 읽기
+            List<Transaction> transactions = readTransactionHistory(session);
 
             return new TransitCardData(CardType.HIPASS, cardNumber, balance, transactions);
+        } catch (TagLostException e) {
+            // 중간까지 읽은 상태는 progress에 남아 있음 → NFCReader가 보관 후 다시 태그하면 이어 읽음
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "Error parsing Hipass card", e);
-            return new TransitCardData(CardType.HIPASS, bytesToHex(cardId), 0, new ArrayList<>());
+            ReaderLog.e(TAG, "Error parsing Hipass card", e);
+            return null;
         }
     }
 
-    private boolean selectSecondaryAid(IsoDep isoDep) {
+    private boolean selectSecondaryAid(CardSession session) throws TagLostException {
         try {
-            byte[] response = isoDep.transceive(CMD_SELECT_SECONDARY_AID);
-            Log.d(TAG, "Secondary AID response: " + bytesToHex(response));
+            // 이미 선택되어 있으면 (다시 태그한 카드 등) 명령을 보내지 않음
+            byte[] response = session.selectApplication(SECONDARY_AID);
+            ReaderLog.apdu(TAG, "Secondary AID response: ", response);
 
             if (response != null && response.length >= 2) {
                 int sw1 = response[response.length - 2] & 0xFF;
                 int sw2 = response[response.length - 1] & 0xFF;
 
-                if (response.length > 2) {
-                    secondaryAidResponse = response;
-                }
-
+                // 성공 응답 (FCI) 은 세션에 저장됨 (카드번호 추출용)
                 if (sw1 == 0x90 || sw1 == 0x62) {
-                    Log.d(TAG, "Secondary AID selected: " + String.format("%02X%02X", sw1, sw2));
+                    ReaderLog.d(TAG, () -> "Secondary AID selected: " + String.format("%02X%02X", sw1, sw2));
                     return true;
                 }
             }
             return false;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "selectSecondaryAid error", e);
+            ReaderLog.e(TAG, "selectSecondaryAid error", e);
             return false;
         }
     }
 
-    private int readBalance(IsoDep isoDep) {
+    private int readBalance(ApduChannel channel) throws TagLostException {
         try {
-            byte[] response = isoDep.transceive(CMD_BALANCE_HIPASS);
-
-            if (response.length >= 6 && isSuccess(response)) {
-                int balance = ((response[0] & 0xFF) << 24) |
-                        ((response[1] & 0xFF) << 16) |
-                        ((response[2] & 0xFF) << 8) |
-                        (response[3] & 0xFF);
-                Log.i(TAG, "Balance: " + balance + "원");
+            byte[] response = channel.transceive(CMD_BALANCE_HIPASS);
+
+            if (response.length >= 6 && ApduCodec.isSuccess(response)) {
+                int balance = ApduCodec.getInt(response, 0);
+                ReaderLog.i(TAG, () -> "Balance: " + balance + "원");
                 return balance;
             }
             return 0;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "readBalance error", e);
+            ReaderLog.e(TAG, "readBalance error", e);
             return 0;
         }
     }
 
-    private String readCardNumberFromSecondaryAid() {
-        if (secondaryAidResponse != null) {
-            String cardNum = extractCardNumberFromFCI(secondaryAidResponse);
+    private String readCardNumberFromSecondaryAid(CardSession session) {
+        byte[] secondaryFci = session.getFci(SECONDARY_AID);
+        if (secondaryFci != null) {
+            String cardNum = extractCardNumberFromFCI(secondaryFci, session.getTlvIndex());
             if (cardNum != null) {
-                Log.i(TAG, "Card number found from Secondary AID");
+                ReaderLog.i(TAG, "Card number found from Secondary AID");
                 return cardNum;
             }
         }
         return null;
     }
 
-    private String readCardNumberFromCardInfo(IsoDep isoDep) {
+    private String readCardNumberFromCardInfo(ApduChannel channel) throws TagLostException {
         try {
-            byte[] response = isoDep.transceive(CMD_CARDINFO_HIPASS);
+            byte[] response = channel.transceive(CMD_CARDINFO_HIPASS);
 
-            if (response.length >= 14 && isSuccess(response)) {
-                String cardNum = formatBcdCardNumber(response, 0, 8);
-                if (isValidCardNumber(cardNum)) {
-                    Log.i(TAG, "Card number found from CARDINFO");
-                    return cardNum;
+            if (response.length >= 14 && ApduCodec.isSuccess(response)) {
+                long cardNum = ApduCodec.decodeBcdCardNumber(response, 0, 8);
+                if (ApduCodec.isValidCardNumber(cardNum)) {
+                    ReaderLog.i(TAG, "Card number found from CARDINFO");
+                    return ApduCodec.formatCardNumber(cardNum);
                 }
             }
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "readCardNumberFromCardInfo error", e);
+            ReaderLog.e(TAG, "readCardNumberFromCardInfo error", e);
         }
         return null;
     }
 
-    private String extractCardNumberFromFCI(byte[] data) {
+    private String extractCardNumberFromFCI(byte[] data, TlvIndex tlv) {
         if (data == null || data.length < 10) return null;
 
-        int length = data.length - 2;
         int sw1 = data[data.length - 2] & 0xFF;
 
         if (sw1 != 0x90 && sw1 != 0x62) return null;
 
-        if ((data[0] & 0xFF) == 0x6F) {
+        if ((data[0] & 0xFF) == TlvIndex.TAG_FCI) {
             // 태그 13 (Application Primary Account Number) 찾기
-            for (int i = 0; i < length - 2; i++) {
-                if ((data[i] & 0xFF) == 0x13) {
-                    int cardNumLength = data[i + 1] & 0xFF;
-
-                    if (cardNumLength == 8 && i + 2 + cardNumLength <= length) {
-                        String cardNum = formatBcdCardNumber(data, i + 2, cardNumLength);
-                        if (isValidCardNumber(cardNum)) {
-                            return cardNum;
-                        }
-                    }
-                }
+            tlv.parseResponse(data);
+            long cardNum = tlv.findBcdCardNumber(TAG_CARD_NUMBER);
+            if (ApduCodec.isValidCardNumber(cardNum)) {
+                return ApduCodec.formatCardNumber(cardNum);
             }
         }
         return null;
     }
 
-    private List<Transaction> readTransactionHistory(IsoDep isoDep) {
+    private List<Transaction> readTransactionHistory(CardSession session) throws TagLostException {
+        DecodePipeline pipeline = session.getDecodePipeline();
         List<Transaction> transactions = new ArrayList<>();
 
         for (byte sfi : SFI_VALUES) {
-            for (int record = 1; record <= 10; record++) {
-                try {
-                    byte[] cmd = {0x00, (byte) 0xB2, (byte) record, sfi, LE_RECORD};
-                    byte[] response = isoDep.transceive(cmd);
-
-                    Transaction tx = parseTransactionRecord(response);
-
-                    if (tx != null) {
-                        transactions.add(tx);
-                    } else if (response != null && response.length >= 2) {
-                        int sw1 = response[response.length - 2] & 0xFF;
-                        if (sw1 == 0x6A) break;  // No more records
-                    }
-                } catch (Exception e) {
-                    break;
-                }
-            }
+            // 레코드는 받는 대로 디코딩 스레드로 넘어감
+            RecordReader.readRecords(session, CardType.HIPASS,
+                sfi, MAX_RECORDS, LE_RECORD, this::parseTransactionRecord);
 
+            transactions = pipeline.await();
             if (!transactions.isEmpty()) {
-                Log.i(TAG, "Found " + transactions.size() + " transactions in SFI 0x" +
+                int found = transactions.size();
+                ReaderLog.i(TAG, () -> "Found " + found + " transactions in SFI 0x" +
                         String.format("%02X", sfi));
                 break;
             }
@@ -205,31 +197,22 @@ public class HipassParser implements CardParser {
     private Transaction parseTransactionRecord(byte[] data) {
         if (data == null || data.length < 20) return null;
 
-        int sw1 = data[data.length - 2] & 0xFF;
-        int sw2 = data[data.length - 1] & 0xFF;
-        if (sw1 != 0x90 || sw2 != 0x00) return null;
+        if (!ApduCodec.isSuccess(data)) return null;
 
         int dataLength = data.length - 2;
 
         // 빈 레코드 체크
-        boolean isEmpty = true;
-        for (int i = 0; i < Math.min(16, dataLength); i++) {
-            if (data[i] != 0 && (data[i] & 0xFF) != 0xFF) {
-                isEmpty = false;
-                break;
-            }
-        }
-        if (isEmpty) return null;
+        if (ApduCodec.isBlank(data, 0, Math.min(16, dataLength))) return null;
 
         try {
             // 거래 시퀀스 번호 (offset 7)
             int seqNum = data[7] & 0xFF;
 
             // 거래 금액 (offset 9-10, Big Endian)
-            int amount = ((data[9] & 0xFF) << 8) | (data[10] & 0xFF);
+            int amount = ApduCodec.getUnsignedShort(data, 9);
 
             // 거래 후 잔액 (offset 13-14, Big Endian)
-            int balance = ((data[13] & 0xFF) << 8) | (data[14] & 0xFF);
+            int balance = ApduCodec.getUnsignedShort(data, 13);
 
             // 거래 타입 (offset 16: 04=충전, 05=사용)
             int txTypeCode = data[16] & 0xFF;
@@ -252,67 +235,17 @@ public class HipassParser implements CardParser {
                 location = "하이패스";
             }
 
-            Log.i(TAG, location + " | " + amount + "원 | 잔액: " + balance + "원");
+            if (ReaderLog.isLoggable(ReaderLog.INFO)) {
+                ReaderLog.i(TAG, location + " | " + amount + "원 | 잔액: " + balance + "원");
+            }
 
-            return new Transaction("", location, amount, balance, txType);
+            Transaction transaction = new Transaction("", location, amount, balance, txType);
+            transaction.setSequence(seqNum);
+            return transaction;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error parsing transaction", e);
+            ReaderLog.e(TAG, "Error parsing transaction", e);
             return null;
         }
     }
-
-    private boolean isSuccess(byte[] response) {
-        if (response == null || response.length < 2) return false;
-        return (response[response.length - 2] & 0xFF) == 0x90 &&
-                (response[response.length - 1] & 0xFF) == 0x00;
-    }
-
-    private boolean isValidCardNumber(String cardNum) {
-        if (cardNum == null) return false;
-        String digits = cardNum.replace(" ", "");
-        if (digits.length() < 16) return false;
-
-        for (char c : digits.toCharArray()) {
-            if (c < '0' || c > '9') return false;
-        }
-
-        for (char c : digits.toCharArray()) {
-            if (c != '0') return true;
-        }
-        return false;
-    }
-
-    private String formatBcdCardNumber(byte[] data, int offset, int len) {
-        if (offset + len > data.length - 2) return null;
-
-        StringBuilder sb = new StringBuilder();
-
-        for (int i = 0; i < len; i++) {
-            int high = (data[offset + i] >> 4) & 0x0F;
-            int low = data[offset + i] & 0x0F;
-
-            if (high > 9 || low > 9) return null;
-
-            sb.append(high).append(low);
-        }
-
-        String raw = sb.toString();
-
-        if (raw.length() >= 16) {
-            return raw.substring(0, 4) + " " + raw.substring(4, 8) + " " +
-                    raw.substring(8, 12) + " " + raw.substring(12, 16);
-        }
-
-        return null;
-    }
-
-    private String bytesToHex(byte[] bytes) {
-        if (bytes == null) return "";
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X", b));
-        }
-        return sb.toString();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.transitcard.reader;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HistoryStrategyCache - 발급사(BIN)별 거래내역 읽기 방법 기억 (한페이 / 레일플러스)
+ *
+ * 역할:
+ * - 거래내역을 어디서 읽을 수 있었는지 (SFI 3 / SFI 4 / 90 4E) 카드번호 앞 6자리 기준으로 기억
+ * - 거래 레코드 레이아웃 (거래 타입 / 날짜 위치) 도 함께 기억
+ * - 같은 발급사 카드를 다시 읽을 때 실패할 방법을 건너뛰고 바로 해당 파일 / 레이아웃 사용
+ * - SharedPreferences에 저장하여 앱 재시작 후에도 유지
+ *
+ * 한페이 / 레일플러스의 감지 AID가 아직 AidRegistry에 없어 현재는 해당 파서가 호출되지 않음
+ * (감지 AID가 확인되어 등록되면 별도 변경 없이 동작)
+ */
+public class HistoryStrategyCache {
+    private static final String TAG = "HistoryStrategyCache";
+
+    private static final String PREFS_NAME = "history_strategy_cache";
+    private static final int BIN_LENGTH = 6;
+
+    /**
+     * 거래내역 읽기 방법
+     */
+    public enum Strategy {
+        TRANS_RECORD,     // READ RECORD SFI 3
+        BALANCE_RECORD,   // READ RECORD SFI 4
+        HISTORY_COMMAND   // 90 4E (T-money 스타일)
+    }
+
+    /**
+     * 거래 레코드 레이아웃 (금액 offset 5, 잔액 offset 9는 공통)
+     */
+    public enum Layout {
+        TYPE_FIRST(0, 1),   // 거래 타입 + BCD 날짜
+        DATE_FIRST(4, 0);   // BCD 날짜 + 거래 타입
+
+        public final int typeOffset;
+        public final int dateOffset;
+
+        Layout(int typeOffset, int dateOffset) {
+            this.typeOffset = typeOffset;
+            this.dateOffset = dateOffset;
+        }
+    }
+
+    /**
+     * 캐시 항목 (layout은 날짜로 판별하지 못했으면 null)
+     */
+    public static class Entry {
+        public final Strategy strategy;
+        public final Layout layout;
+
+        Entry(Strategy strategy, Layout layout) {
+            this.strategy = strategy;
+            this.layout = layout;
+        }
+    }
+
+    private final SharedPreferences prefs;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public HistoryStrategyCache(Context context) {
+        this.prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        load();
+    }
+
+    /**
+     * @return 기억된 방법, 없거나 카드번호에서 BIN을 알 수 없으면 null
+     */
+    public synchronized Entry get(CardType cardType, String cardNumber) {
+        String key = key(cardType, cardNumber);
+        return key != null ? entries.get(key) : null;
+    }
+
+    /**
+     * 성공한 방법 기록 (기존과 같으면 저장하지 않음)
+     */
+    public synchronized void put(CardType cardType, String cardNumber, Strategy strategy, Layout layout) {
+        String key = key(cardType, cardNumber);
+        if (key == null) return;
+
+        Entry old = entries.get(key);
+        if (old != null && old.strategy == strategy && old.layout == layout) return;
+
+        entries.put(key, new Entry(strategy, layout));
+        prefs.edit().putString(key, strategy.name() + ":" + (layout != null ? layout.name() : "")).apply();
+        ReaderLog.i(TAG, () -> key + " → " + strategy + " / " + layout);
+    }
+
+    /**
+     * 기억된 방법을 맨 앞으로 옮긴 시도 순서
+     */
+    public static Strategy[] order(Strategy[] defaults, Entry learned) {
+        if (learned == null || defaults[0] == learned.strategy) return defaults;
+        Strategy[] order = new Strategy[defaults.length];
+        order[0] = learned.strategy;
+        int i = 1;
+        for (Strategy strategy : defaults) {
+            if (strategy != learned.strategy && i < order.length) order[i++] = strategy;
+        }
+        return order;
+    }
+
+    // ===== 유틸리티 =====
+
+    /**
+     * "HANPAY:101002" 형식, 카드번호가 16자리 숫자가 아니면 (UID로 대신한 경우 등) null
+     */
+    private static String key(CardType cardType, String cardNumber) {
+        if (cardNumber == null) return null;
+        String digits = cardNumber.replace(" ", "");
+        if (digits.length() != 16) return null;
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') return null;
+        }
+        return cardType.name() + ":" + digits.substring(0, BIN_LENGTH);
+    }
+
+    /**
+     * 형식: key → "STRATEGY:LAYOUT" (LAYOUT은 비어 있을 수 있음)
+     */
+    private void load() {
+        for (Map.Entry<String, ?> e : prefs.getAll().entrySet()) {
+            if (!(e.getValue() instanceof String)) continue;
+            String[] parts = ((String) e.getValue()).split(":", -1);
+            if (parts.length != 2) continue;
+            try {
+                Strategy strategy = Strategy.valueOf(parts[0]);
+                Layout layout = parts[1].isEmpty() ? null : Layout.valueOf(parts[1]);
+                entries.put(e.getKey(), new Entry(strategy, layout));
+            } catch (IllegalArgumentException ex) {
+                ReaderLog.w(TAG, "Skipping invalid entry: " + e.getKey());
+            }
+        }
+        ReaderLog.d(TAG, () -> "Loaded " + entries.size() + " issuer strategies");
+    }
+}
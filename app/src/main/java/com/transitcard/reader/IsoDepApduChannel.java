@@ -0,0 +1,155 @@
+package com.transitcard.reader;
+
+import android.nfc.TagLostException;
+import android.nfc.tech.IsoDep;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * IsoDepApduChannel - IsoDep 기반 ApduChannel 구현
+ *
+ * 처리:
+ * - 61xx: GET RESPONSE (00 C0 00 00 xx) 를 반복하여 응답 데이터 이어 붙이기
+ * - 6Cxx: Le를 xx로 바꿔 재전송하고, LeCache에 기억하여 다음부터 바로 올바른 Le 사용
+ * - APDU별 소요 시간 / 바이트 수를 ApduStats에 기록
+ * - 명령 종류별로 TimeoutPolicy가 정한 타임아웃을 적용하고 응답 시간을 학습시킴
+ * - 읽는 스레드가 interrupt 되면 (읽기 취소) 더 이상 명령을 보내지 않음
+ */
+public class IsoDepApduChannel implements ApduChannel {
+    private static final String TAG = "IsoDepApduChannel";
+
+    private static final int MAX_GET_RESPONSE = 16;  // 61xx 무한 반복 방지
+
+    private final IsoDep isoDep;
+    private final LeCache leCache;
+    private final ReadCapabilities capabilities;
+    private final TimeoutPolicy timeoutPolicy;
+    private final ApduStats stats = new ApduStats();
+    private CardType cardType = null;  // 감지 전에는 null
+    private int currentTimeout = -1;
+
+    public IsoDepApduChannel(IsoDep isoDep, LeCache leCache, ReadCapabilities capabilities,
+                             TimeoutPolicy timeoutPolicy) {
+        this.isoDep = isoDep;
+        this.leCache = leCache;
+        this.capabilities = capabilities;
+        this.timeoutPolicy = timeoutPolicy;
+        capabilities.probe(isoDep);
+    }
+
+    public void setCardType(CardType cardType) {
+        this.cardType = cardType;
+    }
+
+    public ApduStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public ReadCapabilities getCapabilities() {
+        return capabilities;
+    }
+
+    @Override
+    public byte[] transceive(byte[] command) throws IOException {
+        // 이전에 학습한 Le가 있으면 처음부터 적용
+        if (hasLe(command)) {
+            Integer learnedLe = leCache.get(cardType, command);
+            if (learnedLe != null && (command[command.length - 1] & 0xFF) != learnedLe) {
+                command = withLe(command, learnedLe);
+            }
+        }
+
+        byte[] response = send(command);
+
+        // 6Cxx: 잘못된 Le → 카드가 알려준 Le로 재전송
+        if (sw1(response) == 0x6C && hasLe(command)) {
+            int le = response[response.length - 1] & 0xFF;
+            leCache.put(cardType, command, le);
+            ReaderLog.d(TAG, () -> "Learned Le=" + le + " for " + cardType);
+            response = send(withLe(command, le));
+        }
+
+        // 61xx: 남은 응답 데이터를 GET RESPONSE로 받아 이어 붙이기
+        if (sw1(response) == 0x61) {
+            response = getRemainingResponse(response);
+        }
+
+        return response;
+    }
+
+    private byte[] getRemainingResponse(byte[] response) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        int count = 0;
+
+        while (sw1(response) == 0x61 && count++ < MAX_GET_RESPONSE) {
+            data.write(response, 0, response.length - 2);
+            byte remaining = response[response.length - 1];
+            byte[] getResponse = {0x00, (byte) 0xC0, 0x00, 0x00, remaining};
+            response = send(getResponse);
+        }
+
+        data.write(response, 0, response.length);
+        return data.toByteArray();
+    }
+
+    private byte[] send(byte[] command) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Card read cancelled");
+        }
+
+        TimeoutPolicy.CommandClass commandClass = TimeoutPolicy.CommandClass.of(command);
+        int timeout = timeoutPolicy.getTimeout(cardType, commandClass);
+        if (timeout != currentTimeout) {
+            isoDep.setTimeout(timeout);
+            currentTimeout = timeout;
+            ReaderLog.d(TAG, () -> "Timeout set to " + timeout + "ms (" + cardType + " " + commandClass + ")");
+        }
+
+        long start = System.nanoTime();
+        byte[] response;
+        try {
+            response = isoDep.transceive(command);
+        } catch (TagLostException e) {
+            throw e;
+        } catch (IOException e) {
+            // 타임아웃도 표본에 넣어야 학습된 타임아웃이 너무 짧아진 채로 고정되지 않음
+            timeoutPolicy.recordLatency(cardType, commandClass, System.nanoTime() - start);
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        timeoutPolicy.recordLatency(cardType, commandClass, nanos);
+
+        ApduStats.Record record = stats.record(command, response, nanos);
+        if (ReaderLog.isLoggable(ReaderLog.DEBUG)) {
+            ReaderLog.d(TAG, record.toString());
+        }
+
+        if (response == null || response.length < 2) {
+            throw new IOException("Invalid APDU response");
+        }
+        return response;
+    }
+
+    // ===== 유틸리티 =====
+
+    private static int sw1(byte[] response) {
+        return response[response.length - 2] & 0xFF;
+    }
+
+    /**
+     * Le 바이트가 있는 명령인지 (Case 2: 헤더 + Le, Case 4: 헤더 + Lc + 데이터 + Le)
+     */
+    private static boolean hasLe(byte[] command) {
+        if (command.length == 5) return true;
+        return command.length > 5 && command.length == 6 + (command[4] & 0xFF);
+    }
+
+    private static byte[] withLe(byte[] command, int le) {
+        byte[] result = command.clone();
+        result[result.length - 1] = (byte) le;
+        return result;
+    }
+}
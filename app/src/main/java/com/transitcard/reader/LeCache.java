@@ -0,0 +1,33 @@
+package com.transitcard.reader;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LeCache - 카드 종류 / 명령별로 카드가 요구한 Le 값 (6Cxx) 기억
+ *
+ * 한 번 6Cxx를 받은 명령은 다음부터 처음부터 올바른 Le로 전송
+ * → 6C 재전송 왕복이 명령 종류당 최대 1회
+ */
+public class LeCache {
+    private final Map<String, Integer> learned = new HashMap<>();
+
+    public synchronized Integer get(CardType cardType, byte[] command) {
+        return learned.get(key(cardType, command));
+    }
+
+    public synchronized void put(CardType cardType, byte[] command, int le) {
+        learned.put(key(cardType, command), le);
+    }
+
+    /**
+     * 명령 종류 키: CLA, INS, 그리고 READ RECORD는 P2(SFI), 그 외는 P1
+     * (READ RECORD의 P1은 레코드 번호이므로 키에서 제외)
+     */
+    private static String key(CardType cardType, byte[] command) {
+        int cla = command[0] & 0xFF;
+        int ins = command[1] & 0xFF;
+        int param = ins == 0xB2 ? command[3] & 0xFF : command[2] & 0xFF;
+        return (cardType != null ? cardType.name() : "DETECT") + ":" + cla + ":" + ins + ":" + param;
+    }
+}
@@ -1,18 +1,20 @@
 package com.transitcard.reader;
 
 import android.app.AlertDialog;
-import android.app.PendingIntent;
 import android.content.Intent;
 import android.nfc.NfcAdapter;
 import android.nfc.Tag;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
+import android.view.WindowManager;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SwitchCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.viewpager2.widget.CompositePageTransformer;
@@ -23,17 +25,38 @@ import com.transitcard.reader.CardPagerAdapter;
 import com.transitcard.reader.AppDatabase;
 import com.transitcard.reader.CardDao;
 import com.transitcard.reader.CardEntity;
-import com.transitcard.reader.CardWithTransactions;
 
+import java.text.NumberFormat;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-public class MainActivity extends AppCompatActivity {
+public class MainActivity extends AppCompatActivity implements NfcAdapter.ReaderCallback {
     private static final String TAG = "MainActivity";
 
+    // 리더 모드: NFC-A/B만 폴링, NDEF 확인 생략
+    private static final int READER_FLAGS = NfcAdapter.FLAG_READER_NFC_A
+            | NfcAdapter.FLAG_READER_NFC_B
+            | NfcAdapter.FLAG_READER_SKIP_NDEF_CHECK;
+
+    // 연속 스캔 모드 통계 갱신 간격 (ms)
+    private static final long BATCH_STATS_INTERVAL_MS = 1000;
+
+    // 이용내역 목록 끝에서 이 줄 수 안쪽까지 스크롤되면 다음 페이지를 미리 불러옴
+    private static final int TRANSACTION_PREFETCH_DISTANCE = 10;
+
     // NFC 관련
     private NfcAdapter nfcAdapter;
     private NFCReader nfcReader;
-    private PendingIntent pendingIntent;
+
+    // NFC 작업 스레드 (세션을 순서대로 하나씩 처리) 및 UID별 진행 중인 읽기
+    private final ExecutorService nfcExecutor = Executors.newSingleThreadExecutor();
+    private final Map<String, Future<?>> inFlightReads = new HashMap<>();
+    private int readGeneration = 0;  // cancelReads() 마다 증가 (취소된 작업이 새 항목을 지우지 않도록)
 
     // Database 관련
     private AppDatabase database;
@@ -51,8 +74,27 @@ public class MainActivity extends AppCompatActivity {
     private RecyclerView transactionRecyclerView;
     private TextView emptyTransactionTextView;
     private TransactionAdapter transactionAdapter;
+    private TransactionPageLoader transactionLoader;
+
+    // 연속 스캔 모드 (창구용) - Toast / 카드 이동 없이 스캔 결과를 목록에 한 줄씩 추가
+    private SwitchCompat batchModeSwitch;
+    private LinearLayout batchSection;
+    private TextView batchStatsTextView;
+    private RecyclerView batchRecyclerView;
+    private BatchScanAdapter batchAdapter;
+    private BatchSession batchSession;
+    private volatile boolean batchMode = false;  // 디코딩 스레드에서도 읽음
+
+    private final Runnable batchStatsTicker = new Runnable() {
+        @Override
+        public void run() {
+            updateBatchStats();
+            batchStatsTextView.postDelayed(this, BATCH_STATS_INTERVAL_MS);
+        }
+    };
 
-    private List<CardWithTransactions> currentCards;
+    // 카드 행만 (이용내역은 선택된 카드만 transactionLoader로 페이지 단위 조회)
+    private List<CardEntity> currentCards;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -66,8 +108,8 @@ public class MainActivity extends AppCompatActivity {
         initViews();
         setupViewPager();
         setupTransactionRecyclerView();
+        setupBatchMode();
         checkNfcAvailability();
-        createPendingIntent();
         observeCards();
         handleIntent(getIntent());
     }
@@ -79,8 +121,10 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void initNFC() {
+        // release 빌드는 경고 이상만 출력 → NFC 스레드에서 디버그 메시지를 만들지 않음
+        ReaderLog.setSink(new AndroidLogSink(BuildConfig.DEBUG ? ReaderLog.DEBUG : ReaderLog.WARN));
         nfcAdapter = NfcAdapter.getDefaultAdapter(this);
-        nfcReader = new NFCReader();
+        nfcReader = new NFCReader(this);
     }
 
     private void initViews() {
@@ -91,6 +135,10 @@ public class MainActivity extends AppCompatActivity {
         transactionSection = findViewById(R.id.transactionSection);
         transactionRecyclerView = findViewById(R.id.transactionRecyclerView);
         emptyTransactionTextView = findViewById(R.id.emptyTransactionTextView);
+        batchModeSwitch = findViewById(R.id.batchModeSwitch);
+        batchSection = findViewById(R.id.batchSection);
+        batchStatsTextView = findViewById(R.id.batchStatsTextView);
+        batchRecyclerView = findViewById(R.id.batchRecyclerView);
     }
 
     private void setupViewPager() {
@@ -124,50 +172,91 @@ public class MainActivity extends AppCompatActivity {
 
     private void setupTransactionRecyclerView() {
         transactionAdapter = new TransactionAdapter();
-        transactionRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        transactionRecyclerView.setLayoutManager(layoutManager);
         transactionRecyclerView.setAdapter(transactionAdapter);
+
+        // 조회는 DB 읽기 스레드, 결과는 UI 스레드
+        transactionLoader = new TransactionPageLoader(cardDao, database.getQueryExecutor(),
+                this::runOnUiThread, getResources().getInteger(R.integer.transaction_page_size),
+                this::showTransactionPage);
+
+        // 목록 끝에 가까워지면 다음 페이지
+        transactionRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= transactionAdapter.getItemCount() - TRANSACTION_PREFETCH_DISTANCE) {
+                    transactionLoader.loadMore();
+                }
+            }
+        });
     }
 
-    private void createPendingIntent() {
-        Intent intent = new Intent(this, getClass());
-        intent.addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
-        pendingIntent = PendingIntent.getActivity(this, 0, intent, PendingIntent.FLAG_MUTABLE);
+    private void setupBatchMode() {
+        batchAdapter = new BatchScanAdapter();
+        batchRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        batchRecyclerView.setAdapter(batchAdapter);
+        batchModeSwitch.setOnCheckedChangeListener((button, checked) -> setBatchMode(checked));
     }
 
+    /**
+     * 카드 행만 관찰 (거래내역은 불러오지 않음)
+     * 스캔 저장 시 카드 행이 갱신되므로 선택된 카드의 이용내역도 renderCards()에서 다시 불러옴
+     */
     private void observeCards() {
-        cardDao.getAllCardsWithTransactions().observe(this, cards -> {
+        cardDao.getAllCardsLive().observe(this, cards -> {
             Log.d(TAG, "카드 목록 변경: " + (cards != null ? cards.size() : 0) + "개");
 
             currentCards = cards;
 
-            if (cards != null && !cards.isEmpty()) {
-                cardAdapter.setCards(cards);
-                cardViewPager.setVisibility(View.VISIBLE);
-                transactionSection.setVisibility(View.VISIBLE);
-                emptyStateTextView.setVisibility(View.GONE);
-                scanInstructionTextView.setVisibility(View.GONE);
-
-                // 첫 번째 카드의 이용내역 표시
-                updateTransactionList(cardViewPager.getCurrentItem());
-            } else {
-                cardViewPager.setVisibility(View.GONE);
-                transactionSection.setVisibility(View.GONE);
-                emptyStateTextView.setVisibility(View.VISIBLE);
-                scanInstructionTextView.setVisibility(View.VISIBLE);
-            }
+            // 연속 스캔 중에는 카드 목록을 다시 그리지 않음 (모드를 끌 때 한 번에 반영)
+            if (batchMode) return;
+            renderCards(cards);
         });
     }
 
+    private void renderCards(List<CardEntity> cards) {
+        if (cards != null && !cards.isEmpty()) {
+            cardAdapter.setCards(cards);
+            cardViewPager.setVisibility(View.VISIBLE);
+            transactionSection.setVisibility(View.VISIBLE);
+            emptyStateTextView.setVisibility(View.GONE);
+            scanInstructionTextView.setVisibility(View.GONE);
+
+            // 첫 번째 카드의 이용내역 표시
+            updateTransactionList(cardViewPager.getCurrentItem());
+        } else {
+            cardViewPager.setVisibility(View.GONE);
+            transactionSection.setVisibility(View.GONE);
+            emptyStateTextView.setVisibility(View.VISIBLE);
+            scanInstructionTextView.setVisibility(View.VISIBLE);
+            transactionLoader.clear();
+        }
+    }
+
     private void updateTransactionList(int position) {
         if (currentCards == null || position < 0 || position >= currentCards.size()) {
             return;
         }
 
-        CardWithTransactions selectedCard = currentCards.get(position);
-        List<Transaction> transactions = selectedCard.transactions;
+        // 첫 페이지부터 다시 (결과는 showTransactionPage)
+        transactionLoader.load(currentCards.get(position).getId());
+    }
+
+    /**
+     * TransactionPageLoader 결과 - 첫 페이지는 목록 교체, 이후 페이지는 뒤에 추가
+     */
+    private void showTransactionPage(List<Transaction> page, boolean firstPage) {
+        if (!firstPage) {
+            transactionAdapter.addTransactions(page);
+            return;
+        }
 
-        if (transactions != null && !transactions.isEmpty()) {
-            transactionAdapter.setTransactions(transactions);
+        transactionAdapter.setTransactions(page);
+        transactionRecyclerView.scrollToPosition(0);
+        if (!page.isEmpty()) {
             transactionRecyclerView.setVisibility(View.VISIBLE);
             emptyTransactionTextView.setVisibility(View.GONE);
         } else {
@@ -193,17 +282,46 @@ public class MainActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
         if (nfcAdapter != null && nfcAdapter.isEnabled()) {
-            nfcAdapter.enableForegroundDispatch(this, pendingIntent, null, null);
+            nfcAdapter.enableReaderMode(this, this, READER_FLAGS, createReaderModeExtras());
             hideStatus();
         }
+        if (batchMode) {
+            batchStatsTicker.run();
+        }
     }
 
     @Override
     protected void onPause() {
         super.onPause();
         if (nfcAdapter != null) {
-            nfcAdapter.disableForegroundDispatch(this);
+            nfcAdapter.disableReaderMode(this);
         }
+        cancelReads();
+        batchStatsTextView.removeCallbacks(batchStatsTicker);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        nfcExecutor.shutdownNow();
+        nfcReader.shutdown();
+    }
+
+    private Bundle createReaderModeExtras() {
+        Bundle extras = new Bundle();
+        extras.putInt(NfcAdapter.EXTRA_READER_PRESENCE_CHECK_DELAY,
+                getResources().getInteger(R.integer.nfc_presence_check_delay_ms));
+        return extras;
+    }
+
+    /**
+     * 리더 모드 콜백 - NFC 리더 스레드에서 바로 호출됨
+     * (인텐트 전달 / onNewIntent / handleIntent 를 거치지 않음)
+     */
+    @Override
+    public void onTagDiscovered(Tag tag) {
+        long tapNanos = System.nanoTime();
+        submitRead(tag, tapNanos, "reader-mode");
     }
 
     @Override
@@ -220,120 +338,236 @@ public class MainActivity extends AppCompatActivity {
 
             Tag tag = intent.getParcelableExtra(NfcAdapter.EXTRA_TAG);
             if (tag != null) {
-                readCard(tag);
+                // 인텐트로 전달된 태그 (앱이 카드 태그로 실행된 경우)
+                submitRead(tag, System.nanoTime(), "intent");
             }
         }
     }
 
-    private void readCard(Tag tag) {
-        Log.d(TAG, "카드 읽기 시작");
-        showStatus("카드를 읽고 있습니다...");
+    /**
+     * NFC 작업 스레드에 읽기 요청
+     * - 세션은 한 번에 하나씩 처리 (NFCReader 상태 공유 문제 없음)
+     * - 같은 카드(UID)를 읽는 중이거나 대기 중이면 중복 태그는 무시
+     */
+    private void submitRead(Tag tag, long tapNanos, String source) {
+        String uid = ApduCodec.toHex(tag.getId());
+        synchronized (inFlightReads) {
+            if (inFlightReads.containsKey(uid)) {
+                Log.d(TAG, "이미 읽는 중인 카드 - 중복 태그 무시: " + uid);
+                return;
+            }
+            int generation = readGeneration;
+            Future<?> future = nfcExecutor.submit(() -> {
+                try {
+                    readCardOnCurrentThread(tag, tapNanos, source);
+                } finally {
+                    synchronized (inFlightReads) {
+                        if (generation == readGeneration) {
+                            inFlightReads.remove(uid);
+                        }
+                    }
+                }
+            });
+            inFlightReads.put(uid, future);
+        }
+    }
 
-        new Thread(() -> {
-            TransitCardData cardData = null;
-            try {
-                cardData = nfcReader.readCard(tag);
-            } catch (Exception e) {
-                Log.e(TAG, "카드 읽기 오류", e);
+    /**
+     * 대기 중 / 진행 중인 읽기 모두 취소 (onPause)
+     */
+    private void cancelReads() {
+        synchronized (inFlightReads) {
+            for (Future<?> future : inFlightReads.values()) {
+                future.cancel(true);
             }
+            inFlightReads.clear();
+            readGeneration++;
+        }
+        nfcReader.cancel();
+    }
+
+    /**
+     * NFC 작업 스레드에서 실행 - 읽은 결과는 DB 스레드로 넘겨 저장하고
+     * UI 스레드에는 화면 표시만 넘김
+     */
+    private void readCardOnCurrentThread(Tag tag, long tapNanos, String source) {
+        Log.d(TAG, "카드 읽기 시작");
+        if (!batchMode) {
+            runOnUiThread(() -> showStatus("카드를 읽고 있습니다..."));
+        }
 
-            final TransitCardData finalCardData = cardData;
+        ReadProgressListener listener = new ReadProgressListener();
+        TransitCardData cardData = null;
+        try {
+            cardData = nfcReader.readCard(tag, tapNanos, source, listener);
+        } catch (Exception e) {
+            Log.e(TAG, "카드 읽기 오류", e);
+        }
+
+        if (Thread.currentThread().isInterrupted()) {
+            Log.d(TAG, "카드 읽기 취소됨");
+            runOnUiThread(this::hideStatus);
+            return;
+        }
+
+        if (cardData != null) {
+            // 완료 표시는 저장이 끝난 뒤 saveCard() 에서
+            // (DB 쓰기 스레드에서 저장 - NFC 스레드는 저장을 기다리지 않고 다음 태그를 받음)
+            TransitCardData result = cardData;
+            database.getTransactionExecutor().execute(() -> saveCard(result, tapNanos));
+        } else {
+            boolean tagLost = listener.tagLost;
+            long latencyNanos = System.nanoTime() - tapNanos;
             runOnUiThread(() -> {
                 hideStatus();
-                if (finalCardData != null) {
-                    saveOrUpdateCard(finalCardData);
-                    Toast.makeText(this, "카드 인식 완료!", Toast.LENGTH_SHORT).show();
+                if (batchMode) {
+                    addBatchScan(batchSession.recordFailure(
+                            tagLost ? "카드가 떨어졌습니다 - 다시 대주세요" : "카드를 읽을 수 없습니다", latencyNanos));
+                } else if (tagLost) {
+                    Toast.makeText(this, "카드가 떨어졌습니다. 다시 대주시면 이어서 읽습니다", Toast.LENGTH_LONG).show();
                 } else {
                     Toast.makeText(this, "카드를 읽을 수 없습니다", Toast.LENGTH_LONG).show();
                 }
             });
-        }).start();
+        }
     }
 
-    // ==================== Database 관련 ====================
+    /**
+     * 읽기 진행 상황 표시 - 잔액은 거래내역을 다 읽기 전에 바로 보여줌
+     * (NFC 스레드 / 디코딩 스레드에서 호출되므로 상태 문자열만 만들고 UI 스레드로 넘김)
+     */
+    private class ReadProgressListener implements CardReadListener {
+        private final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.KOREA);
+        private volatile String cardName = "";
+        private volatile String balanceText = "";
+        private int transactionCount = 0;  // 디코딩 스레드에서만 변경
+        private volatile boolean tagLost = false;
+
+        @Override
+        public void onCardType(CardType cardType) {
+            cardName = cardType.getDisplayName();
+            postStatus(cardName + " 카드를 읽고 있습니다...");
+        }
 
-    private void saveOrUpdateCard(TransitCardData cardData) {
-        new Thread(() -> {
-            try {
-//                CardEntity existingCard = cardDao.getCardByNumber(cardData.getCardNumber());
-//
-//                if (existingCard != null) {
-//                    // 기존 카드 업데이트
-//                    updateCard(existingCard, cardData);
-//                } else {
-//                    // 새 카드 추가
-//                    insertCard(cardData);
-//                }
-
-                insertCard(cardData);
-            } catch (Exception e) {
-                Log.e(TAG, "카드 저장 오류", e);
-                runOnUiThread(() ->
-                        Toast.makeText(this, "저장 실패", Toast.LENGTH_SHORT).show()
-                );
-            }
-        }).start();
-    }
+        @Override
+        public void onBalance(int balance) {
+            balanceText = cardName + " 잔액 " + numberFormat.format(balance) + "원";
+            postStatus(balanceText + "\n이용내역을 읽고 있습니다...");
+        }
 
-    private void updateCard(CardEntity existingCard, TransitCardData cardData) {
-        Log.d(TAG, "카드 업데이트: " + existingCard.getCardNumber());
+        @Override
+        public void onTransaction(Transaction transaction) {
+            transactionCount++;
+            postStatus(balanceText + "\n이용내역을 읽고 있습니다... (" + transactionCount + "건)");
+        }
 
-        // 1. 카드 정보 업데이트
-        existingCard.setBalance(cardData.getBalance());
-        existingCard.setLastUpdated(System.currentTimeMillis());
-        cardDao.updateCard(existingCard);
+        @Override
+        public void onTagLost() {
+            tagLost = true;
+        }
 
-        // 2. 거래내역 완전 교체 (핵심!)
-        Log.d(TAG, "기존 거래내역 삭제");
-        cardDao.deleteTransactionsByCardId(existingCard.getId());
+        private void postStatus(String message) {
+            // 연속 스캔 중에는 진행 상황 대신 결과 목록만 갱신
+            if (batchMode) return;
+            runOnUiThread(() -> showStatus(message));
+        }
+    }
 
-        Log.d(TAG, "새 거래내역 추가");
-        saveTransactions(existingCard.getId(), cardData.getTransactionHistory());
+    // ==================== Database 관련 ====================
 
-        runOnUiThread(() ->
-                Toast.makeText(this, "카드 정보 업데이트 완료", Toast.LENGTH_SHORT).show()
-        );
+    /**
+     * 카드 저장 - DB 쓰기 스레드 (AppDatabase 트랜잭션 실행기) 에서 호출됨
+     * CardDao.saveScan() 한 트랜잭션으로 저장하고, 커밋된 뒤에만 완료를 알림
+     * (중간에 실패하면 아무것도 저장되지 않고 실패만 알림)
+     *
+     * @param tapNanos 태그 감지 시각 (연속 스캔 모드의 태그 → 결과 지연)
+     */
+    private void saveCard(TransitCardData cardData, long tapNanos) {
+        try {
+            long writeStartNanos = System.nanoTime();
+            int added = cardDao.saveScan(cardData);
+            long writeNanos = System.nanoTime() - writeStartNanos;
+            Log.d(TAG, "스캔 저장: " + cardData.getCardNumber() + " · 새 거래 " + added + "개 · "
+                    + writeNanos / 1_000_000 + "ms");
+
+            long latencyNanos = System.nanoTime() - tapNanos;
+            runOnUiThread(() -> {
+                hideStatus();
+                if (batchMode) {
+                    addBatchScan(batchSession.recordSuccess(cardData, latencyNanos, writeNanos));
+                } else {
+                    Toast.makeText(this, "카드 인식 완료!", Toast.LENGTH_SHORT).show();
+                    cardViewPager.setCurrentItem(0, true);
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "카드 저장 오류", e);
+            long latencyNanos = System.nanoTime() - tapNanos;
+            runOnUiThread(() -> {
+                hideStatus();
+                if (batchMode) {
+                    addBatchScan(batchSession.recordFailure("저장 실패", latencyNanos));
+                } else {
+                    Toast.makeText(this, "저장 실패", Toast.LENGTH_SHORT).show();
+                }
+            });
+        }
     }
 
-    private void insertCard(TransitCardData cardData) {
-        Log.d(TAG, "새 카드 추가: " + cardData.getCardNumber());
-
-        // 1. 카드 추가
-        CardEntity newCard = new CardEntity(
-                cardData.getCardNumber(),
-                cardData.getCardType().getDisplayName(),
-                cardData.getBalance()
-        );
-        long cardId = cardDao.insertCard(newCard);
+    // ==================== 연속 스캔 모드 ====================
 
-        // 2. 거래내역 추가
-        saveTransactions((int) cardId, cardData.getTransactionHistory());
+    /**
+     * 연속 스캔 모드 전환 - 켜는 동안 화면을 켜 두어 리더가 계속 카드를 기다림
+     */
+    private void setBatchMode(boolean enabled) {
+        batchMode = enabled;
+        batchStatsTextView.removeCallbacks(batchStatsTicker);
 
-        runOnUiThread(() -> {
-            Toast.makeText(this, "새 카드 등록 완료", Toast.LENGTH_SHORT).show();
-            cardViewPager.setCurrentItem(0, true);
-        });
+        if (enabled) {
+            getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+            batchSession = new BatchSession(System.nanoTime());
+            batchAdapter.clear();
+            hideStatus();
+            cardViewPager.setVisibility(View.GONE);
+            transactionSection.setVisibility(View.GONE);
+            emptyStateTextView.setVisibility(View.GONE);
+            scanInstructionTextView.setVisibility(View.VISIBLE);
+            batchSection.setVisibility(View.VISIBLE);
+            batchStatsTicker.run();
+        } else {
+            getWindow().clearFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+            batchSection.setVisibility(View.GONE);
+            // 연속 스캔 중 저장된 카드를 한 번에 반영
+            renderCards(currentCards);
+        }
     }
 
-    private void saveTransactions(int cardId, List<Transaction> transactions) {
-        if (transactions == null || transactions.isEmpty()) {
-            Log.d(TAG, "거래내역 없음");
-            return;
-        }
+    /**
+     * UI 스레드에서 호출 - 결과 한 줄 추가 (모드를 끈 뒤 도착한 결과는 버림)
+     */
+    private void addBatchScan(BatchSession.Scan scan) {
+        if (!batchMode) return;
+        batchAdapter.addScan(scan);
+        batchRecyclerView.scrollToPosition(0);
+        updateBatchStats();
+    }
 
-        // 각 거래에 cardId 설정
-        for (Transaction transaction : transactions) {
-            transaction.setCardId(cardId);
+    private void updateBatchStats() {
+        if (batchSession == null) return;
+        String stats = String.format(Locale.KOREA, "%d장 · 분당 %.1f장 · 평균 %dms (저장 %dms)",
+                batchSession.getSuccessCount(),
+                batchSession.getCardsPerMinute(System.nanoTime()),
+                batchSession.getAverageLatencyMs(),
+                batchSession.getAverageWriteMs());
+        if (batchSession.getFailureCount() > 0) {
+            stats += " (실패 " + batchSession.getFailureCount() + ")";
         }
-
-        // 전부 삽입
-        cardDao.insertTransactions(transactions);
-        Log.d(TAG, "거래내역 저장 완료: " + transactions.size() + "개");
+        batchStatsTextView.setText(stats);
     }
 
     // ==================== 카드 삭제 ====================
 
-    private void showDeleteConfirmDialog(CardWithTransactions card) {
+    private void showDeleteConfirmDialog(CardEntity card) {
         new AlertDialog.Builder(this)
                 .setTitle("카드 삭제")
                 .setMessage("이 카드를 삭제하시겠습니까?")
@@ -342,10 +576,10 @@ public class MainActivity extends AppCompatActivity {
                 .show();
     }
 
-    private void deleteCard(CardWithTransactions card) {
-        new Thread(() -> {
+    private void deleteCard(CardEntity card) {
+        database.getTransactionExecutor().execute(() -> {
             try {
-                cardDao.deleteCard(card.card);
+                cardDao.deleteCard(card);
                 // CASCADE로 거래내역도 자동 삭제됨!
                 Log.d(TAG, "카드 삭제 완료");
 
@@ -355,7 +589,7 @@ public class MainActivity extends AppCompatActivity {
             } catch (Exception e) {
                 Log.e(TAG, "카드 삭제 오류", e);
             }
-        }).start();
+        });
     }
 
     // ==================== UI 헬퍼 ====================
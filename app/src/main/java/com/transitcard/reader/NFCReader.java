@@ -1,258 +1,433 @@
 package com.transitcard.reader;
 
+import android.content.Context;
 import android.nfc.Tag;
+import android.nfc.TagLostException;
 import android.nfc.tech.IsoDep;
-import android.util.Log;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
 
 public class NFCReader {
     private static final String TAG = "NFCReader";
 
-    // FCI 응답에서 찾을 AID (카드 구분용)
-    private static final byte[] HIPASS_AID_IN_FCI = {
-            (byte) 0xA0, 0x00, 0x00, 0x02, 0x45, 0x00, 0x01
-    };
-    private static final byte[] EZL_AID_IN_FCI = {
-            (byte) 0xD4, 0x10, 0x00, 0x00, 0x14, 0x00, 0x01
-    };
+    private static final String TRANSCRIPT_DIR = "transcripts";
+
+    // UID → 카드 종류/AID 캐시 (재태그 시 AID 탐색 생략)
+    private final CardTypeCache cardTypeCache;
+
+    // AID / FCI 시그니처 → 카드 종류 / 파서 테이블
+    private final AidRegistry aidRegistry;
+
+    // 발급사(BIN)별 거래내역 읽기 방법 / 레코드 레이아웃 (한페이 / 레일플러스)
+    private final HistoryStrategyCache historyStrategyCache;
+
+    // 카드 종류 / 명령별 Le 학습 결과 (세션 간 공유)
+    private final LeCache leCache = new LeCache();
+
+    // 단말 읽기 능력 (기기당 1회 확인) 및 카드별 다중 레코드 읽기 지원 여부
+    private final ReadCapabilities readCapabilities = new ReadCapabilities();
+
+    // 카드 종류 / 명령 종류별 타임아웃 (응답 시간으로 학습)
+    private final TimeoutPolicy timeoutPolicy;
+
+    // 읽는 도중 카드가 떨어진 경우 UID별 중간 상태 (다시 태그하면 이어 읽기)
+    private final ResumeStore resumeStore;
+
+    // APDU 기록 저장 위치 (기록 모드가 꺼져 있으면 null)
+    private final File transcriptDir;
+
+    // 거래 레코드 디코딩 스레드 (NFC 스레드는 APDU만 보냄)
+    private final ThreadPoolExecutor decodeExecutor;
+
+    // 현재 연결 중인 카드들 (cancel() 에서 닫아 막혀 있는 transceive를 풀어줌)
+    private final Set<IsoDep> activeConnections =
+            Collections.newSetFromMap(new ConcurrentHashMap<IsoDep, Boolean>());
+
+    /**
+     * 카드 감지 결과 (읽기 1회마다 따로 사용 → 여러 세션이 동시에 감지해도 섞이지 않음)
+     */
+    private static class Detection {
+        byte[] fci;        // 선택에 성공한 SELECT 응답 (카드 구분 / 파서에 전달)
+        byte[] aid;        // 선택에 성공한 AID (캐시 저장용)
+        TlvIndex fciIndex; // FCI 시그니처 비교가 필요할 때만 생성
+    }
 
-    // FCI 응답 저장용 (카드 구분에 사용)
-    private byte[] lastFciResponse = null;
+    public NFCReader(Context context) {
+        this.cardTypeCache = new CardTypeCache(context);
+        this.aidRegistry = new AidRegistry(context);
+        this.timeoutPolicy = new TimeoutPolicy(context);
+        this.historyStrategyCache = new HistoryStrategyCache(context);
+        this.decodeExecutor = DecodePipeline.newDecodeExecutor(
+                context.getResources().getInteger(R.integer.decode_queue_capacity));
+        this.resumeStore = new ResumeStore(
+                context.getResources().getInteger(R.integer.read_resume_window_ms));
+        this.transcriptDir = context.getResources().getBoolean(R.bool.capture_apdu_transcripts)
+                ? new File(context.getFilesDir(), TRANSCRIPT_DIR) : null;
+    }
 
     public TransitCardData readCard(Tag tag) {
-        Log.d(TAG, "=== Starting card read ===");
+        return readCard(tag, System.nanoTime(), "direct");
+    }
+
+    /**
+     * @param tapNanos 태그가 감지된 시각 (System.nanoTime) - 태그 → 첫 APDU 지연 측정용
+     * @param source   태그 전달 경로 (예: "reader-mode", "intent")
+     */
+    public TransitCardData readCard(Tag tag, long tapNanos, String source) {
+        return readCard(tag, tapNanos, source, null);
+    }
+
+    /**
+     * @param listener 읽는 도중 카드 종류 / 잔액 / 카드번호 / 거래내역을 바로 받을 리스너 (null 가능)
+     */
+    public TransitCardData readCard(Tag tag, long tapNanos, String source, CardReadListener listener) {
+        ReaderLog.d(TAG, () -> "=== Starting card read (" + source + ") ===");
 
         try {
             byte[] cardId = tag.getId();
-            Log.d(TAG, "Card ID: " + bytesToHex(cardId));
+            ReaderLog.apdu(TAG, "Card ID: ", cardId);
 
             // 태그가 지원하는 기술 목록 확인
             String[] techList = tag.getTechList();
-            Log.d(TAG, "Tag supports " + techList.length + " technologies:");
-            for (String tech : techList) {
-                Log.d(TAG, "  - " + tech);
+            if (ReaderLog.isLoggable(ReaderLog.DEBUG)) {
+                ReaderLog.d(TAG, "Tag supports " + techList.length + " technologies:");
+                for (String tech : techList) {
+                    ReaderLog.d(TAG, "  - " + tech);
+                }
             }
 
             IsoDep isoDep = IsoDep.get(tag);
             if (isoDep == null) {
-                Log.e(TAG, "IsoDep not available - card does not support ISO-DEP");
-                Log.e(TAG, "This card cannot be read as a transit card");
+                ReaderLog.e(TAG, "IsoDep not available - card does not support ISO-DEP");
+                ReaderLog.e(TAG, "This card cannot be read as a transit card");
                 return null;
             }
 
-            Log.d(TAG, "IsoDep obtained successfully");
-            return readIsoDepCard(isoDep, cardId);
+            ReaderLog.d(TAG, "IsoDep obtained successfully");
+            return readIsoDepCard(isoDep, cardId, tapNanos, source, listener);
 
         } catch (Exception e) {
-            Log.e(TAG, "Error reading card", e);
-            e.printStackTrace();
+            ReaderLog.e(TAG, "Error reading card", e);
             return null;
         }
     }
 
-    private TransitCardData readIsoDepCard(IsoDep isoDep, byte[] cardId) {
+    /**
+     * 진행 중인 읽기 모두 취소 (다른 스레드에서 호출)
+     * 읽는 스레드는 interrupt 되어 있어야 하며, 결과는 null이 됨
+     */
+    public void cancel() {
+        for (IsoDep isoDep : activeConnections) {
+            try {
+                isoDep.close();
+                ReaderLog.d(TAG, "Active card connection closed by cancel");
+            } catch (Exception e) {
+                ReaderLog.e(TAG, "Error closing connection on cancel", e);
+            }
+        }
+    }
+
+    /**
+     * 디코딩 스레드 종료 (Activity 종료 시)
+     */
+    public void shutdown() {
+        decodeExecutor.shutdown();
+    }
+
+    private TransitCardData readIsoDepCard(IsoDep isoDep, byte[] cardId, long tapNanos, String source,
+                                           CardReadListener listener) {
+        activeConnections.add(isoDep);
+        RecordingApduChannel recorder = null;
+        CardType cardType = CardType.UNKNOWN;
+        Detection detection = new Detection();
         try {
-            Log.d(TAG, "Connecting to card...");
+            ReaderLog.d(TAG, "Connecting to card...");
             isoDep.connect();
-            Log.d(TAG, "Connected to card successfully");
+            ReaderLog.d(TAG, "Connected to card successfully");
+
+            // 타임아웃은 명령마다 TimeoutPolicy에 따라 채널이 설정
+            IsoDepApduChannel channel = new IsoDepApduChannel(isoDep, leCache,
+                    readCapabilities, timeoutPolicy);
 
-            isoDep.setTimeout(2000);
-            Log.d(TAG, "Timeout set to 2000ms");
+            // 기록 모드: 파서가 주고받는 명령 / 응답을 그대로 기록 (오프라인 재생용)
+            ApduChannel sessionChannel = channel;
+            if (transcriptDir != null) {
+                recorder = new RecordingApduChannel(channel);
+                sessionChannel = recorder;
+            }
 
             // 카드 타입 감지
-            Log.d(TAG, "Starting card type detection...");
-            CardType cardType = detectCardType(isoDep);
-            Log.i(TAG, "Detected card type: " + cardType);
+            ReaderLog.d(TAG, "Starting card type detection...");
+            try {
+                cardType = detectCardTypeCached(sessionChannel, cardId, detection);
+            } catch (TagLostException e) {
+                // 캐시 항목은 그대로 두고 (SELECT 실패가 아님) 다시 태그를 기다림
+                ReaderLog.w(TAG, "Tag lost during card type detection");
+                if (listener != null) listener.onTagLost();
+                return null;
+            }
+            if (ReaderLog.isLoggable(ReaderLog.INFO)) {
+                ReaderLog.i(TAG, "Detected card type: " + cardType);
+            }
+
+            channel.setCardType(cardType);
+            logTapLatency(channel.getStats(), tapNanos, source);
 
             if (cardType == CardType.UNKNOWN) {
-                Log.e(TAG, "Unknown card type - cannot proceed");
+                ReaderLog.e(TAG, "Unknown card type - cannot proceed");
                 isoDep.close();
                 return null;
             }
 
             // 파서 선택 및 데이터 읽기
-            TransitCardData result = null;
-            Log.d(TAG, "Starting to parse card data...");
-
-            switch (cardType) {
-                case TMONEY:
-                    Log.d(TAG, "Using TMoneyParser");
-                    result = new TMoneyParser().parse(isoDep, cardId);
-                    break;
-                case EZL:
-                    Log.d(TAG, "Using EZLParser");
-                    result = new EZLParser().parse(isoDep, cardId);
-                    break;
-                case HIPASS:
-                    Log.d(TAG, "Using HipassParser with primary FCI");
-                    result = new HipassParser().parse(isoDep, cardId, lastFciResponse);
-                    break;
-                default:
-                    Log.w(TAG, "Unsupported card type: " + cardType);
-                    isoDep.close();
-                    return null;
+            ReaderLog.d(TAG, "Starting to parse card data...");
+
+            CardParser parser = aidRegistry.getParser(cardType);
+            if (parser == null) {
+                ReaderLog.w(TAG, "Unsupported card type: " + cardType);
+                isoDep.close();
+                return null;
             }
 
-            if (result != null) {
-                Log.i(TAG, "Card data parsed successfully");
-                Log.i(TAG, "  Type: " + result.getCardType());
-                Log.i(TAG, "  Number: " + result.getCardNumber());
-                Log.i(TAG, "  Balance: " + result.getBalance());
-                Log.i(TAG, "  Transactions: " + (result.getTransactionHistory() != null ? result.getTransactionHistory().size() : 0));
+            ReaderLog.d(TAG, () -> "Using " + parser.getClass().getSimpleName());
+            ReadProgress progress = resumeStore.take(cardId, cardType);
+            if (progress == null) {
+                progress = new ReadProgress(cardType);
+            }
+            CardSession session = new CardSession(sessionChannel, cardId, detection.fci, listener, progress,
+                    historyStrategyCache, decodeExecutor);
+            // 감지 단계에서 선택한 애플리케이션 → 파서가 같은 AID를 다시 SELECT하지 않음
+            session.recordSelected(detection.aid, detection.fci);
+            session.publishCardType(cardType);
+
+            TransitCardData result;
+            try {
+                result = parser.parse(session);
+            } catch (TagLostException e) {
+                // 다시 태그하면 읽은 곳 다음부터 이어서 읽음
+                ReaderLog.w(TAG, "Tag lost during read - keeping partial state");
+                resumeStore.save(cardId, progress);
+                if (listener != null) listener.onTagLost();
+                ReaderLog.i(TAG, () -> "APDU stats: " + channel.getStats().getSummary());
+                return null;
+            }
+
+            if (Thread.currentThread().isInterrupted()) {
+                // 취소된 읽기는 일부만 읽었을 수 있으므로 결과를 버림
+                ReaderLog.w(TAG, "Card read cancelled - discarding result");
+                result = null;
+            } else if (result != null) {
+                ReaderLog.i(TAG, "Card data parsed successfully");
+                if (ReaderLog.isLoggable(ReaderLog.INFO)) {
+                    ReaderLog.i(TAG, "  Type: " + result.getCardType());
+                    ReaderLog.i(TAG, "  Number: " + result.getCardNumber());
+                    ReaderLog.i(TAG, "  Balance: " + result.getBalance());
+                    ReaderLog.i(TAG, "  Transactions: " + (result.getTransactionHistory() != null ? result.getTransactionHistory().size() : 0));
+                }
             } else {
-                Log.e(TAG, "Parser returned null - failed to parse card data");
+                ReaderLog.e(TAG, "Parser returned null - failed to parse card data");
             }
 
+            ReaderLog.i(TAG, () -> "APDU stats: " + channel.getStats().getSummary());
+
             isoDep.close();
-            Log.d(TAG, "Connection closed");
+            ReaderLog.d(TAG, "Connection closed");
             return result;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error reading IsoDep card", e);
-            e.printStackTrace();
+            ReaderLog.e(TAG, "Error reading IsoDep card", e);
             try {
                 if (isoDep.isConnected()) {
                     isoDep.close();
-                    Log.d(TAG, "Connection closed after error");
+                    ReaderLog.d(TAG, "Connection closed after error");
                 }
             } catch (Exception closeError) {
-                Log.e(TAG, "Error closing connection", closeError);
+                ReaderLog.e(TAG, "Error closing connection", closeError);
             }
             return null;
+        } finally {
+            activeConnections.remove(isoDep);
+            timeoutPolicy.save();
+            cardTypeCache.save();
+            if (recorder != null) {
+                saveTranscript(recorder, cardType, cardId, detection.aid, detection.fci);
+            }
         }
     }
 
-    private CardType detectCardType(IsoDep isoDep) {
-        Log.d(TAG, "=== Detecting card type ===");
-
-        // 1. T-Money AID 시도
-        byte[] tmoneyAid = {(byte) 0xD4, 0x10, 0x00, 0x00, 0x03, 0x00, 0x01};
-        if (trySelectAID(isoDep, tmoneyAid, "T-Money")) {
-            return CardType.TMONEY;
+    /**
+     * 세션 기록을 파일로 저장 (UID_시각.apdu)
+     */
+    private void saveTranscript(RecordingApduChannel recorder, CardType cardType, byte[] cardId,
+                                byte[] aid, byte[] fci) {
+        if (!transcriptDir.isDirectory() && !transcriptDir.mkdirs()) {
+            ReaderLog.w(TAG, "Cannot create transcript directory: " + transcriptDir);
+            return;
+        }
+        File file = new File(transcriptDir,
+                ApduCodec.toHex(cardId) + "_" + System.currentTimeMillis() + ApduTranscript.FILE_EXTENSION);
+        try {
+            recorder.toTranscript(cardType, cardId, aid, fci).writeTo(file);
+            ReaderLog.i(TAG, () -> "APDU transcript saved: " + file.getName() + " (" + file.length() + " bytes)");
+        } catch (Exception e) {
+            ReaderLog.e(TAG, "Error saving APDU transcript", e);
         }
+    }
 
-        // 2. KFTC AID 시도 (EZL 또는 하이패스)
-        byte[] kftcAid = {(byte) 0xA0, 0x00, 0x00, 0x04, 0x52, 0x00, 0x01};
-        if (trySelectAID(isoDep, kftcAid, "KFTC")) {
-            // FCI 응답을 분석하여 하이패스와 EZL 구분
-            if (lastFciResponse != null) {
-                if (containsAid(lastFciResponse, HIPASS_AID_IN_FCI)) {
-                    Log.i(TAG, "✓ Detected as HIPASS (AID: A0000002450001)");
-                    return CardType.HIPASS;
-                } else if (containsAid(lastFciResponse, EZL_AID_IN_FCI)) {
-                    Log.i(TAG, "✓ Detected as EZL (AID: D4100000140001)");
-                    return CardType.EZL;
-                }
+    /**
+     * 태그 감지 → 첫 APDU 전송까지 걸린 시간 (전달 경로별 비교용)
+     */
+    private void logTapLatency(ApduStats stats, long tapNanos, String source) {
+        long firstApdu = stats.getFirstApduStartNanos();
+        if (firstApdu == 0) return;
+        ReaderLog.i(TAG, () -> String.format("Tap → first APDU: %.1fms (%s)",
+                (firstApdu - tapNanos) / 1_000_000.0, source));
+    }
+
+    /**
+     * 캐시된 AID가 있으면 바로 선택하고, 실패하면 전체 AID 탐색으로 돌아감
+     *
+     * 캐시에는 감지 AID만 저장 (파서가 옮겨 간 Secondary AID는 저장하지 않음)
+     * - 하이패스는 감지 AID (KFTC) 의 FCI에서 카드번호를 읽으므로 감지 SELECT를 건너뛰면 안 됨
+     * - 감지 AID가 아닌 항목 (이전 버전이 저장한 Secondary AID) 은 지우고 다시 탐색
+     *
+     * @throws TagLostException 감지 중 카드가 떨어짐 (캐시된 AID가 틀린 것은 아니므로 항목 유지)
+     */
+    private CardType detectCardTypeCached(ApduChannel channel, byte[] cardId, Detection detection)
+            throws TagLostException {
+        long start = System.nanoTime();
+        CardTypeCache.Entry stored = cardTypeCache.get(cardId);
+        if (stored != null && !aidRegistry.isProbeAid(stored.aid)) {
+            ReaderLog.d(TAG, "Cached AID is not a detection AID - re-detecting");
+            cardTypeCache.remove(cardId);
+            stored = null;
+        }
+        CardTypeCache.Entry cached = stored;
+
+        if (cached != null) {
+            ReaderLog.d(TAG, () -> "Card type cache hit: " + cached.cardType);
+            if (trySelectAID(channel, cached.aid, "Cached " + cached.cardType, detection)) {
+                cardTypeCache.recordDetection(true, false, System.nanoTime() - start);
+                ReaderLog.i(TAG, () -> "Card type cache: " + cardTypeCache.getStatsSummary());
+                return cached.cardType;
             }
-            // FCI 분석 실패시 기본적으로 EZL로 간주
-            Log.w(TAG, "Cannot distinguish HIPASS/EZL from FCI, defaulting to EZL");
-            return CardType.EZL;
+            ReaderLog.w(TAG, "Cached AID selection failed - falling back to full detection");
+            cardTypeCache.remove(cardId);
         }
 
-        // 3. 추가 EZL AID 시도
-        byte[] ezlAid1 = {(byte) 0xD4, 0x10, 0x00, 0x00, 0x03, 0x00, 0x05};
-        if (trySelectAID(isoDep, ezlAid1, "EZL-Alt1")) {
-            return CardType.EZL;
+        detection.aid = null;
+        CardType cardType = detectCardType(channel, detection);
+        cardTypeCache.recordDetection(false, cached != null, System.nanoTime() - start);
+
+        if (cardType != CardType.UNKNOWN && detection.aid != null) {
+            cardTypeCache.put(cardId, cardType, detection.aid);
         }
+        ReaderLog.i(TAG, () -> "Card type cache: " + cardTypeCache.getStatsSummary());
+        return cardType;
+    }
+
+    private CardType detectCardType(ApduChannel channel, Detection detection) throws TagLostException {
+        ReaderLog.d(TAG, "=== Detecting card type ===");
+
+        // 감지 횟수가 많은 AID부터 시도
+        for (AidRegistry.AidEntry entry : aidRegistry.getProbeOrder()) {
+            if (!trySelectAID(channel, entry.aid, entry.name, detection)) {
+                continue;
+            }
 
-        byte[] ezlAid2 = {(byte) 0xD4, 0x10, 0x00, 0x00, 0x03, 0x00, 0x06};
-        if (trySelectAID(isoDep, ezlAid2, "EZL-Alt2")) {
-            return CardType.EZL;
+            CardType cardType = resolveCardType(entry, detection);
+            aidRegistry.recordHit(entry);
+            return cardType;
         }
 
-        Log.w(TAG, "No known card type detected - tried all known AIDs");
+        ReaderLog.w(TAG, "No known card type detected - tried all known AIDs");
         return CardType.UNKNOWN;
     }
 
-    private boolean trySelectAID(IsoDep isoDep, byte[] aid, String name) {
+    /**
+     * FCI 응답을 분석하여 같은 AID를 공유하는 카드 구분 (예: 하이패스 / EZL)
+     */
+    private CardType resolveCardType(AidRegistry.AidEntry entry, Detection detection) {
+        if (entry.signatures.length == 0) {
+            return entry.cardType;
+        }
+
+        if (detection.fci != null) {
+            // FCI는 한 번만 색인하고 서명마다 4F 항목만 비교
+            if (detection.fciIndex == null) {
+                detection.fciIndex = new TlvIndex();
+            }
+            TlvIndex fciIndex = detection.fciIndex;
+            fciIndex.parseResponse(detection.fci);
+            for (AidRegistry.FciSignature signature : entry.signatures) {
+                if (fciIndex.containsValue(TlvIndex.TAG_AID, signature.aidInFci)) {
+                    ReaderLog.i(TAG, () -> "✓ Detected as " + signature.cardType +
+                            " (AID: " + ApduCodec.toHex(signature.aidInFci) + ")");
+                    return signature.cardType;
+                }
+            }
+        }
+
+        // FCI 분석 실패시 항목의 기본 카드 종류로 간주
+        ReaderLog.w(TAG, "Cannot distinguish card type from FCI, defaulting to " + entry.cardType);
+        return entry.cardType;
+    }
+
+    private boolean trySelectAID(ApduChannel channel, byte[] aid, String name, Detection detection)
+            throws TagLostException {
         try {
-            Log.d(TAG, "Trying " + name + " AID: " + bytesToHex(aid));
-            byte[] response = selectAID(isoDep, aid);
+            ReaderLog.d(TAG, () -> "Trying " + name + " AID: " + ApduCodec.toHex(aid));
+            byte[] response = selectAID(channel, aid);
 
             if (response != null && response.length >= 2) {
                 int sw1 = response[response.length - 2] & 0xFF;
                 int sw2 = response[response.length - 1] & 0xFF;
 
-                Log.d(TAG, name + " response SW: " + String.format("%02X%02X", sw1, sw2) +
+                ReaderLog.d(TAG, () -> name + " response SW: " + String.format("%02X%02X", sw1, sw2) +
                         " (length: " + response.length + ")");
 
                 // FCI 응답 저장
                 if (sw1 == 0x90 && sw2 == 0x00) {
-                    lastFciResponse = response;
-                    Log.i(TAG, "✓ " + name + " AID selected successfully");
-                    Log.d(TAG, "FCI Response: " + bytesToHex(response));
+                    detection.fci = response;
+                    detection.aid = aid;
+                    ReaderLog.i(TAG, () -> "✓ " + name + " AID selected successfully");
+                    ReaderLog.apdu(TAG, "FCI Response: ", response);
                     return true;
                 } else {
-                    Log.d(TAG, "✗ " + name + " AID selection failed");
+                    ReaderLog.d(TAG, () -> "✗ " + name + " AID selection failed");
                 }
             } else {
-                Log.d(TAG, "✗ " + name + " AID - invalid response");
+                ReaderLog.d(TAG, () -> "✗ " + name + " AID - invalid response");
             }
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.d(TAG, "✗ " + name + " AID failed: " + e.getMessage());
+            ReaderLog.d(TAG, () -> "✗ " + name + " AID failed: " + e.getMessage());
         }
         return false;
     }
 
-    private byte[] selectAID(IsoDep isoDep, byte[] aid) {
-        byte[] selectCommand = new byte[6 + aid.length];
-        selectCommand[0] = 0x00;              // CLA
-        selectCommand[1] = (byte) 0xA4;       // INS (SELECT)
-        selectCommand[2] = 0x04;              // P1
-        selectCommand[3] = 0x00;              // P2
-        selectCommand[4] = (byte) aid.length; // Lc
-        System.arraycopy(aid, 0, selectCommand, 5, aid.length);
-        selectCommand[selectCommand.length - 1] = 0x00; // Le
+    /**
+     * @return SELECT 응답, 통신 오류면 null
+     * @throws TagLostException 카드가 떨어짐 (다음 AID를 시도해도 소용없음)
+     */
+    private byte[] selectAID(ApduChannel channel, byte[] aid) throws TagLostException {
+        byte[] selectCommand = ApduCodec.selectByName(aid);
 
         try {
-            Log.d(TAG, "Sending SELECT command: " + bytesToHex(selectCommand));
-            byte[] response = isoDep.transceive(selectCommand);
-            Log.d(TAG, "Received response: " + bytesToHex(response));
+            ReaderLog.apdu(TAG, "Sending SELECT command: ", selectCommand);
+            byte[] response = channel.transceive(selectCommand);
+            ReaderLog.apdu(TAG, "Received response: ", response);
             return response;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "Error selecting AID", e);
+            ReaderLog.e(TAG, "Error selecting AID", e);
             return null;
         }
     }
-
-    /**
-     * FCI 응답에서 특정 AID를 찾음
-     */
-    private boolean containsAid(byte[] fciResponse, byte[] targetAid) {
-        if (fciResponse == null || targetAid == null) return false;
-        if (fciResponse.length < targetAid.length + 2) return false;  // +2 for status word
-
-        // FCI 응답에서 4F 태그 (AID) 찾기
-        int dataLength = fciResponse.length - 2;  // Status Word 제외
-
-        for (int i = 0; i < dataLength - targetAid.length; i++) {
-            // 4F 태그 확인
-            if ((fciResponse[i] & 0xFF) == 0x4F) {
-                int aidLength = fciResponse[i + 1] & 0xFF;
-                if (aidLength == targetAid.length) {
-                    // AID 비교
-                    boolean match = true;
-                    for (int j = 0; j < targetAid.length; j++) {
-                        if (fciResponse[i + 2 + j] != targetAid[j]) {
-                            match = false;
-                            break;
-                        }
-                    }
-                    if (match) {
-                        Log.d(TAG, "Found matching AID at offset " + i);
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
-    private String bytesToHex(byte[] bytes) {
-        if (bytes == null) return "null";
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02X", b));
-        }
-        return result.toString();
-    }
 }
\ No newline at end of file
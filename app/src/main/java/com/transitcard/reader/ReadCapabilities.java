@@ -0,0 +1,83 @@
+package com.transitcard.reader;
+
+import android.nfc.tech.IsoDep;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ReadCapabilities - 단말 / 카드의 읽기 능력
+ *
+ * 단말 (기기당 1회 확인):
+ * - 확장 길이 APDU 지원 여부 (IsoDep.isExtendedLengthApduSupported)
+ * - 최대 전송 길이 (IsoDep.getMaxTransceiveLength)
+ *
+ * 카드 (카드 종류 / SFI별 학습):
+ * - READ RECORD "P1부터 모든 레코드" (P2 하위 3비트 = 101) 지원 여부
+ */
+public class ReadCapabilities {
+    private static final String TAG = "ReadCapabilities";
+
+    private static final int SHORT_MAX_LE = 256;
+    private static final int EXTENDED_MAX_LE = 65536;
+
+    private boolean probed = false;
+    private boolean extendedLengthSupported = false;
+    private int maxTransceiveLength = SHORT_MAX_LE;
+
+    private final Map<String, Boolean> multiRecordSupport = new HashMap<>();
+
+    /**
+     * 단말 능력 확인 (처음 1회만 실제로 조회)
+     */
+    public synchronized void probe(IsoDep isoDep) {
+        if (probed) return;
+        try {
+            extendedLengthSupported = isoDep.isExtendedLengthApduSupported();
+            maxTransceiveLength = isoDep.getMaxTransceiveLength();
+            probed = true;
+            ReaderLog.i(TAG, () -> "Extended length: " + extendedLengthSupported +
+                    ", max transceive: " + maxTransceiveLength);
+        } catch (Exception e) {
+            ReaderLog.w(TAG, "Capability probe failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 단말 능력을 직접 지정 (기록된 세션 재생용, IsoDep 없음)
+     */
+    public synchronized void setDeviceLimits(boolean extendedLengthSupported, int maxTransceiveLength) {
+        this.extendedLengthSupported = extendedLengthSupported;
+        this.maxTransceiveLength = maxTransceiveLength;
+        this.probed = true;
+    }
+
+    public synchronized boolean isExtendedLengthSupported() {
+        return extendedLengthSupported;
+    }
+
+    public synchronized int getMaxTransceiveLength() {
+        return maxTransceiveLength;
+    }
+
+    /**
+     * 한 번의 응답으로 받을 수 있는 최대 데이터 길이 (SW 2바이트 제외)
+     */
+    public synchronized int getMaxResponseLength() {
+        int limit = extendedLengthSupported ? EXTENDED_MAX_LE : SHORT_MAX_LE;
+        return Math.max(0, Math.min(limit, maxTransceiveLength - 2));
+    }
+
+    /**
+     * @return null이면 아직 모름, true/false는 학습 결과
+     */
+    public synchronized Boolean isMultiRecordSupported(CardType cardType, int sfiP2) {
+        return multiRecordSupport.get(cardType.name() + ":" + sfiP2);
+    }
+
+    public synchronized void setMultiRecordSupported(CardType cardType, int sfiP2, boolean supported) {
+        multiRecordSupport.put(cardType.name() + ":" + sfiP2, supported);
+        ReaderLog.d(TAG, () -> "Multi-record read " + (supported ? "supported" : "not supported") +
+                " for " + cardType + " P2=" + String.format("%02X", sfiP2));
+    }
+}
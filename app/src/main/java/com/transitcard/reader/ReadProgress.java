@@ -0,0 +1,98 @@
+package com.transitcard.reader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ReadProgress - 카드 1장에 대해 지금까지 읽은 내용
+ *
+ * - 잔액 / 카드번호
+ * - 파일(SFI 등)별로 이미 받은 응답 (레코드 번호 순서)
+ * - 끝까지 읽은 파일 목록
+ *
+ * 읽는 도중 카드가 떨어지면 ResumeStore에 보관되고,
+ * 다시 태그하면 이미 받은 응답은 재사용하고 다음 레코드부터 이어서 읽음.
+ */
+public class ReadProgress {
+    private final CardType cardType;
+    private Integer balance = null;
+    private String cardNumber = null;
+    private final Map<Integer, List<byte[]>> responses = new HashMap<>();
+    private final Set<Integer> completed = new HashSet<>();
+
+    public ReadProgress(CardType cardType) {
+        this.cardType = cardType;
+    }
+
+    public CardType getCardType() {
+        return cardType;
+    }
+
+    /**
+     * @return 아직 읽지 않았으면 null
+     */
+    public Integer getBalance() {
+        return balance;
+    }
+
+    public void setBalance(int balance) {
+        this.balance = balance;
+    }
+
+    /**
+     * @return 아직 읽지 않았으면 null
+     */
+    public String getCardNumber() {
+        return cardNumber;
+    }
+
+    public void setCardNumber(String cardNumber) {
+        this.cardNumber = cardNumber;
+    }
+
+    /**
+     * 파일별 응답 목록 (호출한 쪽이 읽는 대로 바로 추가 → 중간에 끊겨도 남음)
+     *
+     * @param fileKey 파일 구분 값 (예: READ RECORD P2)
+     */
+    public List<byte[]> getResponses(int fileKey) {
+        List<byte[]> list = responses.get(fileKey);
+        if (list == null) {
+            list = new ArrayList<>();
+            responses.put(fileKey, list);
+        }
+        return list;
+    }
+
+    public boolean isCompleted(int fileKey) {
+        return completed.contains(fileKey);
+    }
+
+    public void markCompleted(int fileKey) {
+        completed.add(fileKey);
+    }
+
+    /**
+     * 이어 읽기에 쓸 내용이 있는지
+     */
+    public boolean hasData() {
+        if (balance != null || cardNumber != null) return true;
+        for (List<byte[]> list : responses.values()) {
+            if (!list.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    public String getSummary() {
+        int count = 0;
+        for (List<byte[]> list : responses.values()) {
+            count += list.size();
+        }
+        return cardType + " balance=" + balance + " responses=" + count +
+                " files=" + responses.size() + " completed=" + completed.size();
+    }
+}
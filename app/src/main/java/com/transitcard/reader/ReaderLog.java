@@ -0,0 +1,126 @@
+package com.transitcard.reader;
+
+/**
+ * ReaderLog - NFC 읽기 경로 로그 facade
+ *
+ * - Sink가 연결되지 않으면 (기본값) 아무것도 포맷 / 출력하지 않음
+ * - 문자열을 조합해야 하는 메시지는 Message로 넘김 → 해당 레벨이 꺼져 있으면 만들지 않음
+ * - APDU 덤프 (apdu) 는 BuildConfig.LOG_APDU_DUMPS가 false인 빌드 (release) 에서 컴파일 시점에 제거됨
+ *
+ * 주의: 지역 변수를 캡처하는 람다는 호출할 때마다 객체가 생기므로
+ * APDU / 레코드마다 도는 반복문 안에서는 isLoggable()로 먼저 확인할 것
+ */
+public final class ReaderLog {
+    // android.util.Log 과 같은 값
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    public static final boolean APDU_DUMPS = BuildConfig.LOG_APDU_DUMPS;
+
+    /**
+     * 지연 생성 메시지 (java.util.function.Supplier는 API 24부터라 별도 정의)
+     */
+    public interface Message {
+        String get();
+    }
+
+    /**
+     * 로그 출력 대상
+     */
+    public interface Sink {
+        boolean isLoggable(int level);
+
+        void log(int level, String tag, String message, Throwable tr);
+    }
+
+    private static volatile Sink sink = null;
+
+    private ReaderLog() {
+    }
+
+    /**
+     * @param newSink null이면 로그 끔
+     */
+    public static void setSink(Sink newSink) {
+        sink = newSink;
+    }
+
+    public static boolean isLoggable(int level) {
+        Sink s = sink;
+        return s != null && s.isLoggable(level);
+    }
+
+    // ===== 고정 문자열 =====
+
+    public static void d(String tag, String message) {
+        log(DEBUG, tag, message, null);
+    }
+
+    public static void i(String tag, String message) {
+        log(INFO, tag, message, null);
+    }
+
+    public static void w(String tag, String message) {
+        log(WARN, tag, message, null);
+    }
+
+    public static void e(String tag, String message) {
+        log(ERROR, tag, message, null);
+    }
+
+    public static void e(String tag, String message, Throwable tr) {
+        log(ERROR, tag, message, tr);
+    }
+
+    // ===== 지연 생성 =====
+
+    public static void d(String tag, Message message) {
+        log(DEBUG, tag, message);
+    }
+
+    public static void i(String tag, Message message) {
+        log(INFO, tag, message);
+    }
+
+    public static void w(String tag, Message message) {
+        log(WARN, tag, message);
+    }
+
+    // ===== APDU 덤프 =====
+
+    /**
+     * label + data(hex) 를 DEBUG로 출력 (release 빌드에서는 아무것도 하지 않음)
+     */
+    public static void apdu(String tag, String label, byte[] data) {
+        if (!APDU_DUMPS) return;
+        Sink s = sink;
+        if (s == null || !s.isLoggable(DEBUG)) return;
+        s.log(DEBUG, tag, label + (data != null ? ApduCodec.toHex(data) : "null"), null);
+    }
+
+    /**
+     * 반복문 안에서 덤프 라벨을 조합하기 전에 확인용
+     */
+    public static boolean isApduDumpEnabled() {
+        return APDU_DUMPS && isLoggable(DEBUG);
+    }
+
+    // ===== 내부 =====
+
+    private static void log(int level, String tag, String message, Throwable tr) {
+        Sink s = sink;
+        if (s != null && s.isLoggable(level)) {
+            s.log(level, tag, message, tr);
+        }
+    }
+
+    private static void log(int level, String tag, Message message) {
+        Sink s = sink;
+        if (s != null && s.isLoggable(level)) {
+            s.log(level, tag, message.get(), null);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.transitcard.reader;
+
+import android.nfc.TagLostException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * RecordReader - 고정 길이 레코드 파일 읽기
+ *
+ * 카드가 지원하면 READ RECORD "P1부터 모든 레코드" (P2 = SFI << 3 | 0x05) 로
+ * 여러 레코드를 한 번에 읽고, 응답 크기는 단말의 최대 전송 길이 / 확장 길이 지원에 맞춤.
+ * 지원하지 않는 카드는 카드 종류 / SFI별로 기억하고 기존처럼 레코드 1개씩 읽음.
+ *
+ * 반환되는 각 레코드는 기존 파서 코드가 그대로 쓸 수 있도록 끝에 SW (90 00) 를 붙임.
+ *
+ * 거래내역 파일은 1번 레코드부터 차례로 채워지므로, 처음 나온 빈 레코드 (모두 00 / FF) 에서 멈춤.
+ * → 거래가 3건인 카드는 maxRecords와 상관없이 READ RECORD 4번 (단건 읽기 기준) 으로 끝남.
+ *
+ * 읽은 레코드는 바로 세션의 ReadProgress에 쌓이므로, 도중에 카드가 떨어지면
+ * (TagLostException, 그대로 던짐) 다시 태그했을 때 다음 레코드부터 이어서 읽음.
+ * 그 밖의 통신 오류로 중단된 파일은 완료로 표시하지 않음 (다음 태그에서 이어서 읽음).
+ *
+ * 레코드는 받는 즉시 세션의 DecodePipeline으로 넘기고 바로 다음 READ RECORD를 보냄
+ * (디코딩은 디코딩 스레드에서 진행, 결과는 파서가 DecodePipeline.await() 으로 받음).
+ */
+public final class RecordReader {
+    private static final String TAG = "RecordReader";
+
+    private static final int P2_READ_ALL_FROM_P1 = 0x05;  // P2 하위 3비트 101
+    private static final int P2_READ_P1 = 0x04;           // P2 하위 3비트 100
+
+    private RecordReader() {
+    }
+
+    /**
+     * @param sfiP2        기존 READ RECORD P2 값 (SFI << 3 | 0x04)
+     * @param maxRecords   최대 레코드 수
+     * @param recordLength 레코드 길이 (기존 Le 값)
+     * @param decoder      레코드 응답 (데이터 + 90 00) → 거래, 이전 태그에서 읽은 레코드에도 적용
+     * @throws TagLostException 읽는 도중 카드가 떨어짐 (그때까지 읽은 레코드는 세션에 남음)
+     */
+    public static void readRecords(CardSession session, CardType cardType, int sfiP2,
+                                   int maxRecords, int recordLength,
+                                   DecodePipeline.RecordDecoder decoder) throws TagLostException {
+        ReadProgress progress = session.getProgress();
+        List<byte[]> records = progress.getResponses(sfiP2);
+        RecordTarget target = new RecordTarget(records, session.getDecodePipeline(), decoder);
+
+        for (byte[] record : records) {
+            target.pipeline.submit(record, decoder);
+        }
+
+        if (!progress.isCompleted(sfiP2) && records.size() < maxRecords) {
+            if (!records.isEmpty()) {
+                ReaderLog.i(TAG, () -> String.format("Resuming P2=%02X from record %d", sfiP2, records.size() + 1));
+            }
+            if (readInto(session.getChannel(), cardType, sfiP2, maxRecords, recordLength, target)) {
+                progress.markCompleted(sfiP2);
+            } else {
+                ReaderLog.w(TAG, String.format("P2=%02X incomplete after read error (%d records)",
+                        sfiP2, records.size()));
+            }
+        }
+    }
+
+    /**
+     * 읽은 레코드를 ReadProgress에 쌓고 바로 디코딩 단계로 넘김
+     */
+    private static final class RecordTarget {
+        final List<byte[]> records;
+        final DecodePipeline pipeline;
+        final DecodePipeline.RecordDecoder decoder;
+
+        RecordTarget(List<byte[]> records, DecodePipeline pipeline, DecodePipeline.RecordDecoder decoder) {
+            this.records = records;
+            this.pipeline = pipeline;
+            this.decoder = decoder;
+        }
+
+        int size() {
+            return records.size();
+        }
+
+        void add(byte[] record) {
+            records.add(record);
+            pipeline.submit(record, decoder);
+        }
+    }
+
+    /**
+     * records에 이어서 읽기 (첫 레코드 번호 = 이미 읽은 개수 + 1)
+     *
+     * @return 파일 끝까지 읽었는지 (통신 오류로 중단되면 false)
+     */
+    private static boolean readInto(ApduChannel channel, CardType cardType, int sfiP2,
+                                 int maxRecords, int recordLength, RecordTarget records)
+            throws TagLostException {
+        ReadCapabilities capabilities = channel.getCapabilities();
+        Boolean multiSupported = capabilities.isMultiRecordSupported(cardType, sfiP2);
+        int perApdu = capabilities.getMaxResponseLength() / recordLength;
+
+        if (!Boolean.FALSE.equals(multiSupported) && perApdu > 1 && maxRecords - records.size() > 1) {
+            if (readMultiple(channel, capabilities, cardType, sfiP2,
+                    maxRecords, recordLength, perApdu, records)) {
+                return true;
+            }
+        }
+        return readSingle(channel, sfiP2, maxRecords, recordLength, records);
+    }
+
+    /**
+     * 다중 레코드 읽기
+     *
+     * @return 파일 끝까지 읽었으면 true, 지원하지 않거나 통신 오류면 false
+     *         (false면 읽은 레코드 다음부터 1개씩 읽기로 이어감)
+     */
+    private static boolean readMultiple(ApduChannel channel, ReadCapabilities capabilities,
+                                        CardType cardType, int sfiP2, int maxRecords,
+                                        int recordLength, int perApdu, RecordTarget records)
+            throws TagLostException {
+        int p2 = (sfiP2 & 0xF8) | P2_READ_ALL_FROM_P1;
+        int startSize = records.size();
+        int record = startSize + 1;
+
+        while (records.size() < maxRecords) {
+            int count = Math.min(perApdu, maxRecords - records.size());
+            byte[] cmd = buildReadRecord(record, p2, count * recordLength);
+
+            byte[] response;
+            try {
+                response = channel.transceive(cmd);
+            } catch (TagLostException e) {
+                throw e;
+            } catch (IOException e) {
+                ReaderLog.e(TAG, "Multi-record read failed at record " + record, e);
+                return false;
+            }
+
+            int sw1 = response[response.length - 2] & 0xFF;
+            int sw2 = response[response.length - 1] & 0xFF;
+            int dataLength = response.length - 2;
+
+            // 이번 호출에서 이미 몇 개 읽은 상태에서 6A83 (레코드 없음) → 끝
+            // (이전 태그에서 읽은 레코드만 있으면 6Axx는 다중 읽기 미지원일 수 있으므로 아래에서 처리)
+            if (sw1 == 0x6A && records.size() > startSize) break;
+
+            // 90 00 또는 62 82 (요청보다 먼저 파일 끝 도달) 이고 레코드 길이의 배수일 때만 인정
+            boolean ok = (sw1 == 0x90 && sw2 == 0x00) || (sw1 == 0x62 && sw2 == 0x82);
+            if (!ok || dataLength == 0 || dataLength % recordLength != 0) {
+                if (records.size() == startSize) {
+                    capabilities.setMultiRecordSupported(cardType, sfiP2, false);
+                    return false;
+                }
+                break;
+            }
+
+            capabilities.setMultiRecordSupported(cardType, sfiP2, true);
+            int got = dataLength / recordLength;
+            boolean blankReached = false;
+            for (int i = 0; i < got && records.size() < maxRecords; i++) {
+                if (ApduCodec.isBlank(response, i * recordLength, recordLength)) {
+                    blankReached = true;
+                    break;
+                }
+                byte[] single = new byte[recordLength + 2];
+                System.arraycopy(response, i * recordLength, single, 0, recordLength);
+                single[recordLength] = (byte) 0x90;
+                single[recordLength + 1] = 0x00;
+                records.add(single);
+            }
+
+            // 빈 레코드가 나왔거나 요청보다 적게 왔으면 마지막 레코드까지 읽은 것
+            if (blankReached || got < count || sw1 == 0x62) break;
+            record += got;
+        }
+
+        ReaderLog.d(TAG, () -> "Multi-record read: " + (records.size() - startSize) + " records");
+        return true;
+    }
+
+    /**
+     * 레코드 1개씩 읽기 (6Axx, 빈 레코드 또는 통신 오류 시 중단, 카드가 떨어지면 예외)
+     *
+     * @return 파일 끝까지 읽었는지 (통신 오류로 중단되면 false)
+     */
+    private static boolean readSingle(ApduChannel channel, int sfiP2, int maxRecords,
+                                   int recordLength, RecordTarget records) throws TagLostException {
+        int p2 = (sfiP2 & 0xF8) | P2_READ_P1;
+
+        for (int record = records.size() + 1; record <= maxRecords; record++) {
+            try {
+                byte[] cmd = {0x00, (byte) 0xB2, (byte) record, (byte) p2, (byte) recordLength};
+                byte[] response = channel.transceive(cmd);
+
+                int sw1 = response[response.length - 2] & 0xFF;
+                if (sw1 == 0x6A) break;  // No more records
+                if (sw1 == 0x90 && ApduCodec.isBlankRecord(response)) break;  // 이후 레코드도 비어 있음
+
+                records.add(response);
+            } catch (TagLostException e) {
+                throw e;
+            } catch (IOException e) {
+                ReaderLog.e(TAG, "Error reading record " + record, e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * READ RECORD 명령 생성 (Le가 256 초과면 확장 길이 형식)
+     */
+    private static byte[] buildReadRecord(int record, int p2, int le) {
+        if (le <= 256) {
+            return new byte[]{0x00, (byte) 0xB2, (byte) record, (byte) p2, (byte) (le == 256 ? 0 : le)};
+        }
+        // 확장 길이 Le: 00 + 2바이트 (65536은 00 00)
+        return new byte[]{0x00, (byte) 0xB2, (byte) record, (byte) p2,
+                0x00, (byte) ((le >> 8) & 0xFF), (byte) (le & 0xFF)};
+    }
+}
@@ -0,0 +1,50 @@
+package com.transitcard.reader;
+
+import android.nfc.TagLostException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RecordingApduChannel - 실제 채널을 감싸서 명령 / 응답을 그대로 기록
+ *
+ * 파서가 보는 응답 (61xx / 6Cxx 처리 후 최종 응답) 을 기록하므로
+ * ReplayApduChannel로 재생할 때 Le 학습 / GET RESPONSE 처리가 필요 없음.
+ */
+public class RecordingApduChannel implements ApduChannel {
+    private final ApduChannel delegate;
+    private final List<ApduTranscript.Exchange> exchanges = new ArrayList<>();
+
+    public RecordingApduChannel(ApduChannel delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public byte[] transceive(byte[] command) throws IOException {
+        byte[] sent = command.clone();
+        try {
+            byte[] response = delegate.transceive(command);
+            exchanges.add(new ApduTranscript.Exchange(sent, ApduTranscript.OUTCOME_RESPONSE, response.clone()));
+            return response;
+        } catch (TagLostException e) {
+            exchanges.add(new ApduTranscript.Exchange(sent, ApduTranscript.OUTCOME_TAG_LOST, null));
+            throw e;
+        } catch (IOException e) {
+            exchanges.add(new ApduTranscript.Exchange(sent, ApduTranscript.OUTCOME_IO_ERROR, null));
+            throw e;
+        }
+    }
+
+    @Override
+    public ReadCapabilities getCapabilities() {
+        return delegate.getCapabilities();
+    }
+
+    public ApduTranscript toTranscript(CardType cardType, byte[] cardId, byte[] aid, byte[] fci) {
+        ReadCapabilities capabilities = delegate.getCapabilities();
+        return new ApduTranscript(cardType, cardId, aid, fci,
+                capabilities.isExtendedLengthSupported(), capabilities.getMaxTransceiveLength(),
+                exchanges);
+    }
+}
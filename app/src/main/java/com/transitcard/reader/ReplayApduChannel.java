@@ -0,0 +1,74 @@
+package com.transitcard.reader;
+
+import android.nfc.TagLostException;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ReplayApduChannel - ApduTranscript에 기록된 응답을 돌려주는 채널 (카드 / IsoDep 불필요)
+ *
+ * - 같은 명령이 여러 번 기록되어 있으면 기록된 순서대로 응답
+ * - 기록에 없는 명령 (예: 기록 당시와 다중 레코드 읽기 학습 상태가 다름) 은 6A82 응답
+ *   → 파서는 실제 카드가 명령을 지원하지 않을 때와 같은 경로로 진행
+ * - 기록 당시 통신 오류 / 카드 떨어짐은 같은 예외로 재현
+ */
+public class ReplayApduChannel implements ApduChannel {
+    private static final String TAG = "ReplayApduChannel";
+
+    private static final byte[] SW_NOT_FOUND = {0x6A, (byte) 0x82};
+
+    private final Map<String, Deque<ApduTranscript.Exchange>> exchanges = new HashMap<>();
+    private final ReadCapabilities capabilities = new ReadCapabilities();
+    private int unmatched = 0;
+
+    public ReplayApduChannel(ApduTranscript transcript) {
+        for (ApduTranscript.Exchange exchange : transcript.getExchanges()) {
+            String key = ApduCodec.toHex(exchange.command);
+            Deque<ApduTranscript.Exchange> queue = exchanges.get(key);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                exchanges.put(key, queue);
+            }
+            queue.add(exchange);
+        }
+        capabilities.setDeviceLimits(transcript.isExtendedLengthSupported(),
+                transcript.getMaxTransceiveLength());
+    }
+
+    @Override
+    public byte[] transceive(byte[] command) throws IOException {
+        Deque<ApduTranscript.Exchange> queue = exchanges.get(ApduCodec.toHex(command));
+        ApduTranscript.Exchange exchange = queue != null ? queue.poll() : null;
+
+        if (exchange == null) {
+            unmatched++;
+            ReaderLog.apdu(TAG, "No recorded response for ", command);
+            return SW_NOT_FOUND.clone();
+        }
+
+        switch (exchange.outcome) {
+            case ApduTranscript.OUTCOME_TAG_LOST:
+                throw new TagLostException("Tag was lost (recorded)");
+            case ApduTranscript.OUTCOME_IO_ERROR:
+                throw new IOException("Transceive failed (recorded)");
+            default:
+                return exchange.response.clone();
+        }
+    }
+
+    @Override
+    public ReadCapabilities getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * 기록에 없어 6A82로 응답한 명령 수
+     */
+    public int getUnmatchedCount() {
+        return unmatched;
+    }
+}
@@ -0,0 +1,81 @@
+package com.transitcard.reader;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * ResumeStore - 카드 UID별 중간까지 읽은 상태 보관
+ *
+ * 읽는 도중 카드가 떨어지면 (TagLostException) 그때까지 읽은 ReadProgress를 저장하고,
+ * 설정된 시간 안에 같은 카드를 다시 태그하면 꺼내서 이어 읽음.
+ * 시간이 지난 상태는 버림 (그 사이 카드 사용으로 내용이 바뀌었을 수 있음)
+ */
+public class ResumeStore {
+    private static final String TAG = "ResumeStore";
+
+    private static class Pending {
+        final ReadProgress progress;
+        final long savedNanos;
+
+        Pending(ReadProgress progress, long savedNanos) {
+            this.progress = progress;
+            this.savedNanos = savedNanos;
+        }
+    }
+
+    private final long windowNanos;
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    /**
+     * @param windowMillis 다시 태그했을 때 이어 읽기를 허용하는 시간
+     */
+    public ResumeStore(long windowMillis) {
+        this.windowNanos = windowMillis * 1_000_000L;
+    }
+
+    /**
+     * 중간 상태 저장 (읽은 내용이 없으면 저장하지 않음)
+     */
+    public synchronized void save(byte[] cardId, ReadProgress progress) {
+        if (progress == null || !progress.hasData()) return;
+        pending.put(key(cardId), new Pending(progress, System.nanoTime()));
+        ReaderLog.i(TAG, () -> "Saved partial read: " + progress.getSummary());
+    }
+
+    /**
+     * 이어 읽을 상태를 꺼냄 (한 번 꺼내면 제거됨)
+     *
+     * @return 같은 카드 종류의 유효한 상태가 없으면 null
+     */
+    public synchronized ReadProgress take(byte[] cardId, CardType cardType) {
+        evictExpired();
+        Pending p = pending.remove(key(cardId));
+        if (p == null) return null;
+        if (p.progress.getCardType() != cardType) {
+            ReaderLog.w(TAG, "Discarding partial read for different card type: " + p.progress.getCardType());
+            return null;
+        }
+        ReaderLog.i(TAG, () -> String.format("Resuming partial read (%.1fs old): %s",
+                (System.nanoTime() - p.savedNanos) / 1_000_000_000.0, p.progress.getSummary()));
+        return p.progress;
+    }
+
+    public synchronized void remove(byte[] cardId) {
+        pending.remove(key(cardId));
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        Iterator<Pending> it = pending.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().savedNanos > windowNanos) {
+                it.remove();
+            }
+        }
+    }
+
+    private static String key(byte[] cardId) {
+        return ApduCodec.toHex(cardId);
+    }
+}
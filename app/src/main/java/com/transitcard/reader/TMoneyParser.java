@@ -1,9 +1,7 @@
 package com.transitcard.reader;
 
-import android.nfc.tech.IsoDep;
-import android.util.Log;
+import android.nfc.TagLostException;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class TMoneyParser implements CardParser {
@@ -13,59 +11,79 @@ public class TMoneyParser implements CardParser {
     private static final byte[] CMD_CARDINFO = {0x00, (byte) 0xB2, 0x01, 0x14, 0x33};
     private static final byte P2_BALANCE_RECORD = 0x24;  // SFI 4
     private static final byte LE_RECORD = 0x2E;          // 46 bytes
+    private static final int MAX_RECORDS = 20;
 
     @Override
-    public TransitCardData parse(IsoDep isoDep, byte[] cardId) {
+    public TransitCardData parse(CardSession session) throws TagLostException {
+        ApduChannel channel = session.getChannel();
+        byte[] cardId = session.getCardId();
+        ReadProgress progress = session.getProgress();
         try {
-            int balance = readBalance(isoDep);
-            String cardNumber = readCardNumber(isoDep);
-            if (cardNumber == null || cardNumber.isEmpty()) {
-                cardNumber = bytesToHex(cardId);
+            // 이전 태그에서 이미 읽었으면 다시 읽지 않음
+            if (progress.getBalance() == null) {
+                progress.setBalance(readBalance(channel));
             }
-            List<Transaction> transactions = readTransactionHistory(isoDep);
+            int balance = progress.getBalance();
+            session.publishBalance(balance);
+
+            if (progress.getCardNumber() == null) {
+                String cardNumber = readCardNumber(channel);
+                if (cardNumber == null || cardNumber.isEmpty()) {
+                    cardNumber = ApduCodec.toHex(cardId);
+                }
+                progress.setCardNumber(cardNumber);
+            }
+            String cardNumber = progress.getCardNumber();
+            session.publishCardNumber(cardNumber);
+
+            List<Transaction> transactions = readTransactionHistory(session);
 
             return new TransitCardData(CardType.TMONEY, cardNumber, balance, transactions);
+        } catch (TagLostException e) {
+            // 중간까지 읽은 상태는 progress에 남아 있음 → NFCReader가 보관 후 다시 태그하면 이어 읽음
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "Error parsing T-money card", e);
-            return new TransitCardData(CardType.TMONEY, bytesToHex(cardId), 0, new ArrayList<>());
+            ReaderLog.e(TAG, "Error parsing T-money card", e);
+            return null;
         }
     }
 
-    private int readBalance(IsoDep isoDep) {
+    private int readBalance(ApduChannel channel) throws TagLostException {
         try {
-            byte[] response = isoDep.transceive(CMD_BALANCE);
-            Log.d(TAG, "Balance response: " + bytesToHex(response));
-
-            if (response.length >= 6 && isSuccess(response)) {
-                int balance = ((response[0] & 0xFF) << 24) |
-                        ((response[1] & 0xFF) << 16) |
-                        ((response[2] & 0xFF) << 8) |
-                        (response[3] & 0xFF);
-                Log.i(TAG, "Balance: " + balance + "원");
+            byte[] response = channel.transceive(CMD_BALANCE);
+            ReaderLog.apdu(TAG, "Balance response: ", response);
+
+            if (response.length >= 6 && ApduCodec.isSuccess(response)) {
+                int balance = ApduCodec.getInt(response, 0);
+                ReaderLog.i(TAG, () -> "Balance: " + balance + "원");
                 return balance;
             }
             return 0;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "readBalance error", e);
+            ReaderLog.e(TAG, "readBalance error", e);
             return 0;
         }
     }
 
-    private String readCardNumber(IsoDep isoDep) {
-        Log.d(TAG, "=== readCardNumber ===");
+    private String readCardNumber(ApduChannel channel) throws TagLostException {
+        ReaderLog.d(TAG, "=== readCardNumber ===");
 
         try {
-            Log.d(TAG, "Trying CARDINFO: " + bytesToHex(CMD_CARDINFO));
-            byte[] response = isoDep.transceive(CMD_CARDINFO);
-            Log.d(TAG, "CARDINFO response: " + bytesToHex(response));
+            ReaderLog.apdu(TAG, "Trying CARDINFO: ", CMD_CARDINFO);
+            byte[] response = channel.transceive(CMD_CARDINFO);
+            ReaderLog.apdu(TAG, "CARDINFO response: ", response);
 
             String cardNum = extractCardNumber(response);
             if (cardNum != null) return cardNum;
+        } catch (TagLostException e) {
+            throw e;
         } catch (Exception e) {
-            Log.d(TAG, "CARDINFO failed: " + e.getMessage());
+            ReaderLog.d(TAG, () -> "CARDINFO failed: " + e.getMessage());
         }
 
-        Log.w(TAG, "Card number not found");
+        ReaderLog.w(TAG, "Card number not found");
         return null;
     }
 
@@ -78,45 +96,39 @@ public class TMoneyParser implements CardParser {
         }
 
         // Offset 8에서 BCD 카드번호 추출 및 포맷팅
-        String cardNum = formatBcdCardNumber(data, 8, 8);
-        if (isValidCardNumber(cardNum)) {
-            Log.i(TAG, "Card number found: " + cardNum);
-            return cardNum;
+        long cardNum = ApduCodec.decodeBcdCardNumber(data, 8, 8);
+        if (ApduCodec.isValidCardNumber(cardNum)) {
+            String formatted = ApduCodec.formatCardNumber(cardNum);
+            ReaderLog.i(TAG, () -> "Card number found: " + formatted);
+            return formatted;
         }
 
         return null;
     }
 
 
-    private List<Transaction> readTransactionHistory(IsoDep isoDep) {
-        List<Transaction> transactions = new ArrayList<>();
-        Log.d(TAG, "=== readTransactionHistory ===");
+    private List<Transaction> readTransactionHistory(CardSession session) throws TagLostException {
+        ReaderLog.d(TAG, "=== readTransactionHistory ===");
 
-        for (int record = 1; record <= 20; record++) {
-            try {
-                byte[] cmd = {0x00, (byte) 0xB2, (byte) record, P2_BALANCE_RECORD, LE_RECORD};
-                byte[] response = isoDep.transceive(cmd);
+        // 레코드는 받는 대로 디코딩 스레드로 넘어감 (decodeRecord)
+        RecordReader.readRecords(session, CardType.TMONEY,
+                P2_BALANCE_RECORD, MAX_RECORDS, LE_RECORD, this::decodeRecord);
 
-                String hexResponse = bytesToHex(response);
-                Log.i("TEST2", hexResponse);
-
-                Transaction tx = parseBalanceRecord(response);
+        List<Transaction> transactions = session.getDecodePipeline().await();
+        ReaderLog.i(TAG, () -> "Found " + transactions.size() + " transactions");
+        return transactions;
+    }
 
-                if (tx != null) {
-                    transactions.add(tx);
-                    Log.i(TAG, String.format("Transaction: %s | %s | %d원 | 잔액: %d원",
-                            tx.getDate(), tx.getLocation(), tx.getAmount(), tx.getBalanceAfter()));
-                } else if (response != null && response.length >= 2) {
-                    int sw1 = response[response.length - 2] & 0xFF;
-                    if (sw1 == 0x6A) break;
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error reading record " + record, e);
-                break;
-            }
+    /**
+     * 디코딩 스레드에서 호출
+     */
+    private Transaction decodeRecord(byte[] response) {
+        Transaction tx = parseBalanceRecord(response);
+        if (tx != null && ReaderLog.isLoggable(ReaderLog.INFO)) {
+            ReaderLog.i(TAG, String.format("Transaction: %s | %s | %d원 | 잔액: %d원",
+                    tx.getDate(), tx.getLocation(), tx.getAmount(), tx.getBalanceAfter()));
         }
-        Log.i(TAG, "Found " + transactions.size() + " transactions");
-        return transactions;
+        return tx;
     }
 
     /**
@@ -125,38 +137,33 @@ public class TMoneyParser implements CardParser {
      * 정확한 구조:
      * Offset 0:     거래 타입 (0x01=사용, 0x02=충전)
      * Offset 4-5:   잔액 (2 bytes, Big Endian)
+     * Offset 6-9:   거래 일련번호 (4 bytes, Big Endian)
      * Offset 12-13: 거래 금액 (2 bytes, Big Endian)
      * Offset 16-19: 거래 유형 코드
      * 끝-2:         Status Word (9000)
      */
-    private Transaction parseBalanceRecord(byte[] data) {
+    Transaction parseBalanceRecord(byte[] data) {
         if (data == null || data.length < 20) return null;
 
-        int sw1 = data[data.length - 2] & 0xFF;
-        int sw2 = data[data.length - 1] & 0xFF;
-        if (sw1 != 0x90 || sw2 != 0x00) return null;
+        if (!ApduCodec.isSuccess(data)) return null;
 
         int dataLength = data.length - 2;
 
         // 빈 레코드 체크
-        boolean isEmpty = true;
-        for (int i = 0; i < Math.min(16, dataLength); i++) {
-            if (data[i] != 0 && (data[i] & 0xFF) != 0xFF) {
-                isEmpty = false;
-                break;
-            }
-        }
-        if (isEmpty) return null;
+        if (ApduCodec.isBlank(data, 0, Math.min(16, dataLength))) return null;
 
         try {
             // offset 0: 거래 타입 (0x01=사용, 0x02=충전)
             int recordType = data[0] & 0xFF;
 
             // 잔액 (offset 4-5, Big Endian)
-            int balance = get2BytesBE(data, 4);
+            int balance = ApduCodec.getUnsignedShort(data, 4);
+
+            // 거래 일련번호 (offset 6-9, Big Endian) - 같은 거래인지 구분하는 키
+            int sequence = ApduCodec.getInt(data, 6);
 
             // 거래 금액 (offset 12-13, Big Endian)
-            int amount = get2BytesBE(data, 12);
+            int amount = ApduCodec.getUnsignedShort(data, 12);
 
             // 거래 타입 판별
             TransactionType txType;
@@ -172,75 +179,13 @@ public class TMoneyParser implements CardParser {
                 location = "사용";
             }
 
-            return new Transaction("", location, amount, balance, txType);
+            Transaction transaction = new Transaction("", location, amount, balance, txType);
+            transaction.setSequence(sequence);
+            return transaction;
 
         } catch (Exception e) {
-            Log.e(TAG, "Error parsing balance record", e);
+            ReaderLog.e(TAG, "Error parsing balance record", e);
             return null;
         }
     }
-
-    // ===== 유틸리티 메서드 =====
-
-    private boolean isSuccess(byte[] response) {
-        if (response == null || response.length < 2) return false;
-        return (response[response.length - 2] & 0xFF) == 0x90 &&
-                (response[response.length - 1] & 0xFF) == 0x00;
-    }
-
-    /**
-     * 2바이트 Big Endian 정수 변환
-     */
-    private int get2BytesBE(byte[] data, int offset) {
-        if (offset + 2 > data.length) return 0;
-        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
-    }
-
-    private boolean isValidCardNumber(String cardNum) {
-        if (cardNum == null) return false;
-        String digits = cardNum.replace(" ", "");
-        if (digits.length() < 16) return false;
-        // 숫자만 있는지 확인
-        for (char c : digits.toCharArray()) {
-            if (c < '0' || c > '9') return false;
-        }
-        // 모두 0인지 확인
-        for (char c : digits.toCharArray()) {
-            if (c != '0') return true;
-        }
-        return false;
-    }
-
-    private String formatBcdCardNumber(byte[] data, int offset, int len) {
-        if (offset + len > data.length) return null;
-
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < len; i++) {
-            int high = (data[offset + i] >> 4) & 0x0F;
-            int low = data[offset + i] & 0x0F;
-
-            // BCD 유효성 검사
-            if (high > 9 || low > 9) return null;
-
-            sb.append(high).append(low);
-        }
-
-        String raw = sb.toString();
-        if (raw.length() >= 16) {
-            return raw.substring(0, 4) + " " + raw.substring(4, 8) + " " +
-                    raw.substring(8, 12) + " " + raw.substring(12, 16);
-        }
-        return null;
-    }
-
-
-
-    private String bytesToHex(byte[] bytes) {
-        if (bytes == null) return "";
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X", b));
-        }
-        return sb.toString();
-    }
 }
\ No newline at end of file
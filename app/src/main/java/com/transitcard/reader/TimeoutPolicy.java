@@ -0,0 +1,169 @@
+package com.transitcard.reader;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TimeoutPolicy - 카드 종류 / 명령 종류별 IsoDep 타임아웃 학습
+ *
+ * 동작:
+ * - 명령마다 실제 응답 시간을 기록 (최근 SAMPLE_SIZE개)
+ * - 표본이 충분하면 타임아웃 = p95 × 배수 (MIN ~ MAX 범위로 제한)
+ * - 표본이 부족하면 기본값 사용
+ *   - 감지 단계 (카드 종류 모름): 짧게 → 응답 없는 AID에서 빨리 실패, 고객은 다시 태그
+ *   - 거래내역 읽기: 길게 (기존 2000ms)
+ * - SharedPreferences에 저장하여 앱 재시작 후에도 유지
+ */
+public class TimeoutPolicy {
+    private static final String TAG = "TimeoutPolicy";
+
+    private static final String PREFS_NAME = "timeout_policy";
+
+    private static final int SAMPLE_SIZE = 32;
+    private static final int MIN_SAMPLES = 8;
+    private static final int MULTIPLIER = 3;
+    private static final int MIN_TIMEOUT_MS = 100;
+    private static final int MAX_TIMEOUT_MS = 2000;
+
+    private static final int DEFAULT_DETECT_TIMEOUT_MS = 500;
+    private static final int DEFAULT_BALANCE_TIMEOUT_MS = 1000;
+    private static final int DEFAULT_RECORD_TIMEOUT_MS = 2000;
+
+    /**
+     * 명령 종류
+     */
+    public enum CommandClass {
+        SELECT,
+        BALANCE,
+        READ_RECORD,
+        READ_RECORDS,  // 다중 레코드 읽기 (응답이 큼)
+        OTHER;
+
+        public static CommandClass of(byte[] command) {
+            if (command == null || command.length < 4) return OTHER;
+            int cla = command[0] & 0xFF;
+            int ins = command[1] & 0xFF;
+            int p2 = command[3] & 0xFF;
+
+            if (ins == 0xA4) return SELECT;
+            if (cla == 0x90 && (ins == 0x4C || ins == 0x5C)) return BALANCE;
+            if (ins == 0xB2) return (p2 & 0x07) == 0x05 ? READ_RECORDS : READ_RECORD;
+            if (ins == 0xB0) return READ_RECORD;
+            return OTHER;
+        }
+    }
+
+    /**
+     * 최근 응답 시간 표본 (원형 버퍼)
+     */
+    private static class Samples {
+        final int[] millis = new int[SAMPLE_SIZE];
+        int count = 0;
+        int next = 0;
+
+        void add(int ms) {
+            millis[next] = ms;
+            next = (next + 1) % SAMPLE_SIZE;
+            if (count < SAMPLE_SIZE) count++;
+        }
+
+        int percentile95() {
+            int[] sorted = Arrays.copyOf(millis, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(count * 0.95) - 1;
+            return sorted[Math.max(0, index)];
+        }
+    }
+
+    private final SharedPreferences prefs;
+    private final Map<String, Samples> samples = new HashMap<>();
+    private boolean dirty = false;
+
+    public TimeoutPolicy(Context context) {
+        this.prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        load();
+    }
+
+    /**
+     * @param cardType 감지 전이면 null
+     */
+    public synchronized int getTimeout(CardType cardType, CommandClass commandClass) {
+        Samples s = samples.get(key(cardType, commandClass));
+        if (s == null || s.count < MIN_SAMPLES) {
+            return defaultTimeout(cardType, commandClass);
+        }
+        int timeout = s.percentile95() * MULTIPLIER;
+        return Math.max(MIN_TIMEOUT_MS, Math.min(MAX_TIMEOUT_MS, timeout));
+    }
+
+    public synchronized void recordLatency(CardType cardType, CommandClass commandClass, long nanos) {
+        String key = key(cardType, commandClass);
+        Samples s = samples.get(key);
+        if (s == null) {
+            s = new Samples();
+            samples.put(key, s);
+        }
+        s.add((int) Math.min(Integer.MAX_VALUE, nanos / 1_000_000));
+        dirty = true;
+    }
+
+    private static int defaultTimeout(CardType cardType, CommandClass commandClass) {
+        if (cardType == null) return DEFAULT_DETECT_TIMEOUT_MS;
+        switch (commandClass) {
+            case SELECT:
+                return DEFAULT_DETECT_TIMEOUT_MS;
+            case BALANCE:
+                return DEFAULT_BALANCE_TIMEOUT_MS;
+            default:
+                return DEFAULT_RECORD_TIMEOUT_MS;
+        }
+    }
+
+    private static String key(CardType cardType, CommandClass commandClass) {
+        return (cardType != null ? cardType.name() : "DETECT") + ":" + commandClass.name();
+    }
+
+    // ===== 저장 / 불러오기 =====
+
+    /**
+     * 세션 종료 시 호출 (변경된 경우에만 저장)
+     * 형식: 키 → "ms,ms,ms,..." (오래된 표본 → 최근 표본 순)
+     */
+    public synchronized void save() {
+        if (!dirty) return;
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, Samples> e : samples.entrySet()) {
+            Samples s = e.getValue();
+            StringBuilder sb = new StringBuilder();
+            int start = s.count < SAMPLE_SIZE ? 0 : s.next;
+            for (int i = 0; i < s.count; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(s.millis[(start + i) % SAMPLE_SIZE]);
+            }
+            editor.putString(e.getKey(), sb.toString());
+        }
+        editor.apply();
+        dirty = false;
+    }
+
+    private void load() {
+        for (Map.Entry<String, ?> e : prefs.getAll().entrySet()) {
+            if (!(e.getValue() instanceof String)) continue;
+            Samples s = new Samples();
+            for (String value : ((String) e.getValue()).split(",")) {
+                try {
+                    s.add(Integer.parseInt(value));
+                } catch (NumberFormatException ignored) {
+                    // 잘못된 값은 건너뜀
+                }
+            }
+            samples.put(e.getKey(), s);
+        }
+        ReaderLog.d(TAG, () -> "Loaded latency samples for " + samples.size() + " command classes");
+    }
+}
@@ -0,0 +1,205 @@
+package com.transitcard.reader;
+
+/**
+ * TlvIndex - APDU 응답 (FCI / 레코드) 의 BER-TLV 태그 목록
+ *
+ * - 응답을 한 번만 앞에서부터 훑어 태그 / 값 위치를 배열에 기록 (constructed 태그는 안으로 들어가며 계속)
+ * - 배열은 처음 만들 때만 할당하고 parse() 마다 재사용 → 응답마다 객체를 만들지 않음
+ * - 카드 종류 구분 (4F) / 카드번호 (5A, 57 등) 는 기록된 항목에서 찾음 (값 안의 바이트를 태그로 오인하지 않음)
+ * - 태그 사이의 00 / FF 패딩은 건너뜀
+ *
+ * 한 스레드에서만 사용 (NFC 스레드)
+ */
+public final class TlvIndex {
+    public static final int TAG_FCI = 0x6F;
+    public static final int TAG_AID = 0x4F;
+    public static final int TAG_PAN = 0x5A;
+    public static final int TAG_TRACK2 = 0x57;
+
+    private static final int MAX_ENTRIES = 32;
+    private static final int MAX_DEPTH = 8;
+    private static final int PAN_MAX_LENGTH = 10;
+    private static final int TRACK2_MAX_LENGTH = 19;
+    private static final int BCD_CARD_NUMBER_LENGTH = 8;
+
+    private final int[] tags = new int[MAX_ENTRIES];
+    private final int[] valueOffsets = new int[MAX_ENTRIES];
+    private final int[] valueLengths = new int[MAX_ENTRIES];
+    private final boolean[] constructed = new boolean[MAX_ENTRIES];
+    private final int[] ends = new int[MAX_DEPTH];
+
+    private byte[] data;
+    private int count;
+    private boolean complete;
+
+    /**
+     * 응답 (데이터 + SW) 의 데이터 부분 색인
+     *
+     * @return 데이터 전체가 올바른 TLV인지 (아니어도 문제가 생기기 전까지의 항목은 사용 가능)
+     */
+    public boolean parseResponse(byte[] response) {
+        if (response == null || response.length < 2) {
+            return parse(response, 0, 0);
+        }
+        return parse(response, 0, response.length - 2);
+    }
+
+    /**
+     * @return data[offset, offset + length) 전체가 올바른 TLV인지
+     */
+    public boolean parse(byte[] data, int offset, int length) {
+        this.data = data;
+        this.count = 0;
+        this.complete = false;
+        if (data == null || length <= 0) return false;
+
+        int end = offset + length;
+        int depth = 0;
+        ends[0] = end;
+        int pos = offset;
+
+        while (true) {
+            // 끝난 constructed 값에서 빠져나옴
+            while (depth > 0 && pos == ends[depth]) depth--;
+            if (pos >= ends[depth]) break;
+
+            int first = data[pos] & 0xFF;
+            if (first == 0x00 || first == 0xFF) {
+                pos++;
+                continue;
+            }
+
+            // 태그 (최대 3바이트)
+            int tag = first;
+            pos++;
+            if ((first & 0x1F) == 0x1F) {
+                int b;
+                do {
+                    if (pos >= ends[depth] || tag > 0xFFFF) return false;
+                    b = data[pos++] & 0xFF;
+                    tag = (tag << 8) | b;
+                } while ((b & 0x80) != 0);
+            }
+
+            // 길이 (1바이트 / 81 xx / 82 xx xx)
+            if (pos >= ends[depth]) return false;
+            int len = data[pos++] & 0xFF;
+            if (len == 0x81) {
+                if (pos >= ends[depth]) return false;
+                len = data[pos++] & 0xFF;
+            } else if (len == 0x82) {
+                if (pos + 1 >= ends[depth]) return false;
+                len = ((data[pos] & 0xFF) << 8) | (data[pos + 1] & 0xFF);
+                pos += 2;
+            } else if (len > 0x80) {
+                return false;
+            }
+            if (len > ends[depth] - pos) return false;
+            if (count == MAX_ENTRIES) return false;
+
+            boolean isConstructed = (first & 0x20) != 0;
+            tags[count] = tag;
+            valueOffsets[count] = pos;
+            valueLengths[count] = len;
+            constructed[count] = isConstructed;
+            count++;
+
+            if (isConstructed && len > 0) {
+                if (depth + 1 == MAX_DEPTH) return false;
+                ends[++depth] = pos + len;
+            } else {
+                pos += len;
+            }
+        }
+
+        complete = true;
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 마지막 parse() 에서 데이터 전체가 올바른 TLV였는지
+     */
+    public boolean isComplete() {
+        return complete && count > 0;
+    }
+
+    /**
+     * @return 처음 나오는 항목 번호, 없으면 -1
+     */
+    public int find(int tag) {
+        for (int i = 0; i < count; i++) {
+            if (tags[i] == tag) return i;
+        }
+        return -1;
+    }
+
+    public int tag(int entry) {
+        return tags[entry];
+    }
+
+    public int valueOffset(int entry) {
+        return valueOffsets[entry];
+    }
+
+    public int valueLength(int entry) {
+        return valueLengths[entry];
+    }
+
+    /**
+     * tag 항목 중 값이 value와 같은 것이 있는지 (예: FCI 안의 4F = 특정 AID)
+     */
+    public boolean containsValue(int tag, byte[] value) {
+        for (int i = 0; i < count; i++) {
+            if (tags[i] != tag || valueLengths[i] != value.length) continue;
+            int offset = valueOffsets[i];
+            boolean match = true;
+            for (int j = 0; j < value.length; j++) {
+                if (data[offset + j] != value[j]) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 카드번호 태그에서 카드번호 찾기
+     * 5A (PAN) → 57 (Track 2) → 8바이트 primitive 값 중 16자리 BCD 순
+     *
+     * @return 카드번호, 없으면 ApduCodec.INVALID_CARD_NUMBER
+     */
+    public long findCardNumber() {
+        for (int i = 0; i < count; i++) {
+            if (tags[i] == TAG_PAN && valueLengths[i] > 0 && valueLengths[i] <= PAN_MAX_LENGTH) {
+                long cardNumber = ApduCodec.decodePanCardNumber(data, valueOffsets[i], valueLengths[i]);
+                if (ApduCodec.isValidCardNumber(cardNumber)) return cardNumber;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (tags[i] == TAG_TRACK2 && valueLengths[i] > 0 && valueLengths[i] <= TRACK2_MAX_LENGTH) {
+                long cardNumber = ApduCodec.decodeTrack2CardNumber(data, valueOffsets[i], valueLengths[i]);
+                if (ApduCodec.isValidCardNumber(cardNumber)) return cardNumber;
+            }
+        }
+        return findBcdCardNumber(-1);
+    }
+
+    /**
+     * 8바이트 primitive 값 중 16자리 BCD 카드번호 (tag가 -1이면 태그 상관없이)
+     */
+    public long findBcdCardNumber(int tag) {
+        for (int i = 0; i < count; i++) {
+            if (constructed[i] || valueLengths[i] != BCD_CARD_NUMBER_LENGTH) continue;
+            if (tag != -1 && tags[i] != tag) continue;
+            long cardNumber = ApduCodec.decodeBcdCardNumber(data, valueOffsets[i], BCD_CARD_NUMBER_LENGTH);
+            if (ApduCodec.isValidCardNumber(cardNumber)) return cardNumber;
+        }
+        return ApduCodec.INVALID_CARD_NUMBER;
+    }
+}
@@ -1,13 +1,22 @@
 package com.transitcard.reader;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
 
-
-
+/**
+ * Transaction - 거래내역 Entity ("transactions" 테이블)
+ *
+ * 같은 거래 = 같은 (cardId, sequence, date, amount, balanceAfter, transactionType)
+ * - 카드에 남아 있는 레코드로 정해지는 값만 사용 (id / timestamp / location 제외)
+ * - UNIQUE 인덱스 + INSERT OR IGNORE → 다시 스캔하면 새 레코드만 추가되고,
+ *   카드가 보관하는 10~20건을 넘어 내역이 계속 쌓임
+ *
+ * 이용내역 목록은 (cardId, timestamp) 인덱스로 최근순 페이지 단위 조회 (CardDao.getTransactionsBefore)
+ */
 @Entity(tableName = "transactions",
         foreignKeys = @ForeignKey(
                 entity = CardEntity.class,
@@ -15,14 +24,18 @@ import androidx.room.TypeConverters;
                 childColumns = "cardId",
                 onDelete = ForeignKey.CASCADE
         ),
-        indices = {@Index("cardId")})
+        indices = {
+                @Index(value = {"cardId", "timestamp"}),
+                @Index(value = {"cardId", "sequence", "date", "amount", "balanceAfter", "transactionType"},
+                        unique = true)
+        })
 public class Transaction {
     @PrimaryKey(autoGenerate = true)
     private int id;
 
     private int cardId;  // 어느 카드의 거래인지
 
-    private String date;
+    private String date;      // 카드에 기록된 일시, 없으면 ""
     private String location;
     private int amount;
     private int balanceAfter;
@@ -32,6 +45,10 @@ public class Transaction {
 
     private long timestamp;  // 저장 시간
 
+    // 카드의 거래 일련번호 (레코드에 없으면 0)
+    @ColumnInfo(defaultValue = "0")
+    private int sequence;
+
     // 빈 생성자 (Room 필수)
     public Transaction() {
         this.timestamp = System.currentTimeMillis();
@@ -111,4 +128,12 @@ public class Transaction {
     public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
 }
\ No newline at end of file
@@ -22,10 +22,19 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
     private final NumberFormat currencyFormat = NumberFormat.getInstance(Locale.KOREA);
 
     public void setTransactions(List<Transaction> transactions) {
-        this.transactions = transactions != null ? transactions : new ArrayList<>();
+        this.transactions = transactions != null ? new ArrayList<>(transactions) : new ArrayList<>();
         notifyDataSetChanged();
     }
 
+    /**
+     * 다음 페이지를 목록 끝에 추가 (추가된 줄만 새로 그림)
+     */
+    public void addTransactions(List<Transaction> page) {
+        int start = transactions.size();
+        transactions.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
     @NonNull
     @Override
     public TransactionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
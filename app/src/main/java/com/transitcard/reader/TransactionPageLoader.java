@@ -0,0 +1,120 @@
+package com.transitcard.reader;
+
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * TransactionPageLoader - 선택된 카드의 이용내역을 페이지 단위로 불러오기
+ *
+ * 역할:
+ * - 첫 페이지: 최근 pageSize건 (CardDao.getLatestTransactions)
+ * - 다음 페이지: 마지막으로 받은 거래의 (timestamp, id) 이후 pageSize건 (CardDao.getTransactionsBefore)
+ *   → OFFSET 없이 인덱스 (cardId, timestamp) 에서 바로 이어 읽음, 내역이 수만 건이어도 페이지당 비용 동일
+ * - 조회는 DB 읽기 스레드, 결과 전달은 메인 스레드
+ * - 다른 카드로 바뀌면 이전 카드의 늦게 온 결과는 버림
+ *
+ * 메인 스레드에서만 호출
+ */
+public class TransactionPageLoader {
+    private static final String TAG = "TransactionPageLoader";
+
+    public interface Listener {
+        /**
+         * @param firstPage true면 목록을 이 페이지로 교체, false면 뒤에 추가
+         */
+        void onPageLoaded(List<Transaction> page, boolean firstPage);
+    }
+
+    private final CardDao cardDao;
+    private final Executor queryExecutor;
+    private final Executor mainExecutor;
+    private final int pageSize;
+    private final Listener listener;
+
+    private int cardId = -1;
+    private int generation = 0;  // load() 마다 증가 (이전 카드의 결과를 구분)
+    private boolean loading = false;
+    private boolean hasMore = false;
+    private long lastTimestamp;
+    private int lastId;
+
+    public TransactionPageLoader(CardDao cardDao, Executor queryExecutor, Executor mainExecutor,
+                                 int pageSize, Listener listener) {
+        this.cardDao = cardDao;
+        this.queryExecutor = queryExecutor;
+        this.mainExecutor = mainExecutor;
+        this.pageSize = pageSize;
+        this.listener = listener;
+    }
+
+    /**
+     * 카드의 첫 페이지부터 다시 불러오기 (카드 선택 / 새 스캔 저장 시)
+     */
+    public void load(int cardId) {
+        this.cardId = cardId;
+        generation++;
+        hasMore = true;
+        fetch(true);
+    }
+
+    /**
+     * 다음 페이지 (목록 끝에 가까워졌을 때) - 불러오는 중이거나 더 없으면 무시
+     */
+    public void loadMore() {
+        if (cardId == -1 || loading || !hasMore) return;
+        fetch(false);
+    }
+
+    /**
+     * 선택된 카드 없음 - 진행 중인 결과도 버림
+     */
+    public void clear() {
+        cardId = -1;
+        generation++;
+        loading = false;
+        hasMore = false;
+    }
+
+    private void fetch(boolean firstPage) {
+        loading = true;
+        int requestGeneration = generation;
+        int requestCardId = cardId;
+        long beforeTimestamp = lastTimestamp;
+        int beforeId = lastId;
+
+        queryExecutor.execute(() -> {
+            List<Transaction> page;
+            try {
+                page = firstPage
+                        ? cardDao.getLatestTransactions(requestCardId, pageSize)
+                        : cardDao.getTransactionsBefore(requestCardId, beforeTimestamp, beforeId, pageSize);
+            } catch (Exception e) {
+                Log.e(TAG, "이용내역 조회 오류", e);
+                page = null;
+            }
+
+            List<Transaction> result = page;
+            mainExecutor.execute(() -> deliver(requestGeneration, firstPage, result));
+        });
+    }
+
+    private void deliver(int requestGeneration, boolean firstPage, List<Transaction> page) {
+        if (requestGeneration != generation) return;  // 그 사이 다른 카드로 바뀜
+        loading = false;
+
+        if (page == null) {
+            hasMore = false;
+            return;
+        }
+
+        hasMore = page.size() == pageSize;
+        if (!page.isEmpty()) {
+            Transaction last = page.get(page.size() - 1);
+            lastTimestamp = last.getTimestamp();
+            lastId = last.getId();
+        }
+        listener.onPageLoaded(page, firstPage);
+    }
+}
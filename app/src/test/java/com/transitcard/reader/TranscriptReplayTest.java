@@ -0,0 +1,246 @@
+package com.transitcard.reader;
+
+import android.nfc.TagLostException;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TranscriptReplayTest - ApduTranscript 파일 (src/test/resources/transcripts) 로 파서 회귀 테스트
+ *
+ * 파일은 실제 카드 기록이 아닌 합성 데이터 (파서마다 1개):
+ * 레코드 레이아웃에 맞춰 직접 만든 카드 응답을 RecordingApduChannel로 기록한 것이며
+ * 카드번호 / FCI 값 / 금액은 임의 값. 한페이 / 레일플러스는 감지 AID를 모르므로 AID / FCI 없음.
+ * → 파서 명령 순서나 디코딩이 바뀌면 실패하지만, 실제 카드와 일치하는지는 검증하지 않음
+ *
+ * 파일과 무관한 재생 동작 (기록에 없는 명령 → 6A82, 기록된 카드 떨어짐, 파일 형식) 은 아래쪽 테스트에서 확인.
+ */
+public class TranscriptReplayTest {
+
+    private static final byte[] AID_TMONEY = {(byte) 0xD4, 0x10, 0x00, 0x00, 0x03, 0x00, 0x01};
+    private static final byte[] AID_KFTC = {(byte) 0xA0, 0x00, 0x00, 0x04, 0x52, 0x00, 0x01};
+
+    @Test
+    public void tmoney() throws Exception {
+        ApduTranscript transcript = load("tmoney");
+        assertEquals(CardType.TMONEY, transcript.getCardType());
+        assertArrayEquals(AID_TMONEY, transcript.getAid());
+
+        TransitCardData data = transcript.replay(new TMoneyParser());
+
+        assertNotNull(data);
+        assertEquals("1010 0100 1234 5678", data.getCardNumber());
+        assertEquals(12350, data.getBalance());
+        List<Transaction> transactions = data.getTransactionHistory();
+        assertEquals(7, transactions.size());  // 다중 레코드 읽기 2번 (5건 + 2건)
+        assertTransaction(transactions.get(0), TransactionType.USE, 1400, 12350);
+        assertTransaction(transactions.get(2), TransactionType.CHARGE, 10000, 15000);
+        assertEquals(0x0312, transactions.get(0).getSequence());
+    }
+
+    @Test
+    public void ezl() throws Exception {
+        ApduTranscript transcript = load("ezl");
+        assertEquals(CardType.EZL, transcript.getCardType());
+        assertArrayEquals(AID_KFTC, transcript.getAid());
+
+        TransitCardData data = transcript.replay(new EZLParser());
+
+        assertNotNull(data);
+        assertEquals("9410 2000 1122 3344", data.getCardNumber());  // 보조 AID FCI
+        assertEquals(8700, data.getBalance());
+        List<Transaction> transactions = data.getTransactionHistory();
+        assertEquals(4, transactions.size());  // 다중 레코드 읽기 미지원 → 1건씩
+        assertTransaction(transactions.get(1), TransactionType.CHARGE, 5000, 10000);
+        assertEquals(0x0150, transactions.get(0).getSequence());
+    }
+
+    @Test
+    public void hipass() throws Exception {
+        ApduTranscript transcript = load("hipass");
+        assertEquals(CardType.HIPASS, transcript.getCardType());
+        assertArrayEquals(AID_KFTC, transcript.getAid());
+
+        TransitCardData data = transcript.replay(new HipassParser());
+
+        assertNotNull(data);
+        assertEquals("5428 7900 0011 2233", data.getCardNumber());  // 보조 AID FCI의 태그 13
+        assertEquals(45600, data.getBalance());
+        List<Transaction> transactions = data.getTransactionHistory();
+        assertEquals(5, transactions.size());  // SFI 2는 비어 있고 SFI 3에서 읽음
+        assertTransaction(transactions.get(1), TransactionType.CHARGE, 30000, 48800);
+        assertEquals(0x40, transactions.get(0).getSequence());
+    }
+
+    @Test
+    public void hanpay() throws Exception {
+        ApduTranscript transcript = load("hanpay");
+        assertEquals(CardType.HANPAY, transcript.getCardType());
+        assertNull(transcript.getAid());
+
+        TransitCardData data = transcript.replay(new HanpayParser());
+
+        assertNotNull(data);
+        assertEquals("1100 2200 3300 4400", data.getCardNumber());  // CARDINFO 응답의 5A
+        assertEquals(21000, data.getBalance());
+        List<Transaction> transactions = data.getTransactionHistory();
+        assertEquals(3, transactions.size());  // SFI 3은 없고 SFI 4에서 읽음
+        assertEquals("25/09/14 08:00", transactions.get(0).getDate());  // 거래 타입 + 날짜 레이아웃
+        assertTransaction(transactions.get(2), TransactionType.CHARGE, 20000, 23500);
+    }
+
+    @Test
+    public void railplus() throws Exception {
+        ApduTranscript transcript = load("railplus");
+        assertEquals(CardType.RAILPLUS, transcript.getCardType());
+        assertNull(transcript.getAid());
+
+        TransitCardData data = transcript.replay(new RailplusParser());
+
+        assertNotNull(data);
+        assertEquals("2300 4500 6700 8900", data.getCardNumber());
+        assertEquals(5400, data.getBalance());
+        List<Transaction> transactions = data.getTransactionHistory();
+        assertEquals(4, transactions.size());  // 90 4E 응답 4건 + 빈 응답
+        assertEquals("25/10/28 19:00", transactions.get(0).getDate());  // 날짜 + 거래 타입 레이아웃
+        assertTransaction(transactions.get(1), TransactionType.CHARGE, 5000, 8000);
+    }
+
+    // ===== 재생 동작 =====
+
+    /**
+     * 기록에 없는 명령은 6A82 → 파서는 카드가 명령을 지원하지 않을 때처럼 UID를 카드번호로 사용
+     */
+    @Test
+    public void missingCommandRepliesNotFound() throws Exception {
+        ApduTranscript recorded = load("tmoney");
+        byte[] cardInfo = {0x00, (byte) 0xB2, 0x01, 0x14, 0x33};
+        List<ApduTranscript.Exchange> exchanges = new ArrayList<>();
+        for (ApduTranscript.Exchange exchange : recorded.getExchanges()) {
+            if (!Arrays.equals(cardInfo, exchange.command)) exchanges.add(exchange);
+        }
+        assertEquals(recorded.getExchanges().size() - 1, exchanges.size());
+
+        ApduTranscript transcript = copyWith(recorded, exchanges);
+        ReplayApduChannel channel = new ReplayApduChannel(transcript);
+        byte[] response = channel.transceive(cardInfo);
+        assertArrayEquals(new byte[]{0x6A, (byte) 0x82}, response);
+        assertEquals(1, channel.getUnmatchedCount());
+
+        TransitCardData data = transcript.replay(new TMoneyParser());
+        assertNotNull(data);
+        assertEquals(ApduCodec.toHex(transcript.getCardId()), data.getCardNumber());
+        assertEquals(recorded.replay(new TMoneyParser()).getBalance(), data.getBalance());
+    }
+
+    /**
+     * 기록 당시 카드가 떨어진 명령은 재생할 때도 TagLostException (NFCReader가 이어 읽기 상태를 보관하는 경로)
+     */
+    @Test(expected = TagLostException.class)
+    public void recordedTagLostIsRethrown() throws Exception {
+        ApduTranscript recorded = load("tmoney");
+        List<ApduTranscript.Exchange> exchanges = new ArrayList<>();
+        boolean lost = false;
+        for (ApduTranscript.Exchange exchange : recorded.getExchanges()) {
+            // 첫 다중 레코드 READ RECORD (P2 하위 3비트 101) 에서 카드가 떨어진 것으로
+            boolean bulkRead = exchange.command[1] == (byte) 0xB2 && (exchange.command[3] & 0x07) == 0x05;
+            if (bulkRead && !lost) {
+                exchanges.add(new ApduTranscript.Exchange(exchange.command, ApduTranscript.OUTCOME_TAG_LOST, null));
+                lost = true;
+            } else {
+                exchanges.add(exchange);
+            }
+        }
+        assertTrue(lost);
+        copyWith(recorded, exchanges).replay(new TMoneyParser());
+    }
+
+    /**
+     * 저장 → 불러오기 후 내용 동일, VERSION 1 파일 (감지 AID 없음) 도 읽힘
+     */
+    @Test
+    public void fileFormatRoundTrip() throws Exception {
+        ApduTranscript original = load("ezl");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        original.writeTo(out);
+        ApduTranscript copy = ApduTranscript.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(original.getCardType(), copy.getCardType());
+        assertArrayEquals(original.getCardId(), copy.getCardId());
+        assertArrayEquals(original.getAid(), copy.getAid());
+        assertArrayEquals(original.getFci(), copy.getFci());
+        assertEquals(original.isExtendedLengthSupported(), copy.isExtendedLengthSupported());
+        assertEquals(original.getMaxTransceiveLength(), copy.getMaxTransceiveLength());
+        assertEquals(original.getExchanges().size(), copy.getExchanges().size());
+        for (int i = 0; i < original.getExchanges().size(); i++) {
+            ApduTranscript.Exchange a = original.getExchanges().get(i);
+            ApduTranscript.Exchange b = copy.getExchanges().get(i);
+            assertArrayEquals(a.command, b.command);
+            assertEquals(a.outcome, b.outcome);
+            assertArrayEquals(a.response, b.response);
+        }
+
+        // VERSION 1: 감지 AID 항목 없음
+        ByteArrayOutputStream v1 = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(v1);
+        data.writeInt(0x41504454);
+        data.writeByte(1);
+        data.writeUTF(CardType.TMONEY.name());
+        data.writeInt(4);
+        data.write(new byte[]{1, 2, 3, 4});
+        data.writeInt(-1);        // FCI 없음
+        data.writeBoolean(false);
+        data.writeInt(261);
+        data.writeInt(1);
+        data.writeInt(5);
+        data.write(new byte[]{(byte) 0x90, 0x4C, 0x00, 0x00, 0x04});
+        data.writeByte(ApduTranscript.OUTCOME_RESPONSE);
+        data.writeInt(6);
+        data.write(new byte[]{0x00, 0x00, 0x03, (byte) 0xE8, (byte) 0x90, 0x00});
+        data.flush();
+
+        ApduTranscript legacy = ApduTranscript.readFrom(new ByteArrayInputStream(v1.toByteArray()));
+        assertEquals(CardType.TMONEY, legacy.getCardType());
+        assertNull(legacy.getAid());
+        assertNull(legacy.getFci());
+        assertEquals(1, legacy.getExchanges().size());
+        assertEquals(1000, legacy.replay(new TMoneyParser()).getBalance());
+    }
+
+    // ===== 유틸리티 =====
+
+    private static ApduTranscript copyWith(ApduTranscript transcript, List<ApduTranscript.Exchange> exchanges) {
+        return new ApduTranscript(transcript.getCardType(), transcript.getCardId(), transcript.getAid(),
+                transcript.getFci(), transcript.isExtendedLengthSupported(),
+                transcript.getMaxTransceiveLength(), exchanges);
+    }
+
+    private static ApduTranscript load(String name) throws IOException {
+        String path = "transcripts/" + name + ApduTranscript.FILE_EXTENSION;
+        try (InputStream in = TranscriptReplayTest.class.getClassLoader().getResourceAsStream(path)) {
+            assertNotNull("Missing transcript: " + path, in);
+            return ApduTranscript.readFrom(in);
+        }
+    }
+
+    private static void assertTransaction(Transaction transaction, TransactionType type,
+                                          int amount, int balanceAfter) {
+        assertEquals(type, transaction.getTransactionType());
+        assertEquals(amount, transaction.getAmount());
+        assertEquals(balanceAfter, transaction.getBalanceAfter());
+    }
+}
@@ -0,0 +1,141 @@
+package com.transitcard.reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * ApduCodecBenchmark - ApduCodec 과 파서마다 있던 기존 유틸리티 비교
+ *
+ * legacy* 메서드는 ApduCodec 도입 전 파서 코드 (StringBuilder + String.format / substring) 그대로.
+ * gc 프로파일러의 gc.alloc.rate.norm (호출당 할당 바이트) 으로 할당 감소를 확인.
+ */
+@State(Scope.Thread)
+public class ApduCodecBenchmark {
+
+    // 한페이 / 레일플러스 CARDINFO FCI - offset 8에 BCD 카드번호
+    private static final String FCI_CARD_NUMBER =
+            "6F198407D4100000" + "1010020012345678" + "A5095F2D026B6F9F1101019000";
+
+    // 한페이 / 레일플러스 거래 레코드 - 1,500원 / 잔액 10,000원
+    private static final String HANPAY_TRANSACTION =
+            "01" + "20241016" + "000005DC" + "00002710" + "00000000000000000000000000" + "9000";
+
+    // BCD YY MM DD HH - 2024-10-16 08시
+    private static final String BCD_DATE = "24101608";
+
+    private byte[] fci;
+    private byte[] transaction;
+    private byte[] bcdDate;
+
+    @Setup
+    public void setup() {
+        fci = ApduCodec.fromHex(FCI_CARD_NUMBER);
+        transaction = ApduCodec.fromHex(HANPAY_TRANSACTION);
+        bcdDate = ApduCodec.fromHex(BCD_DATE);
+    }
+
+    // ===== hex =====
+
+    @Benchmark
+    public String legacyBytesToHex() {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : fci) {
+            sb.append(String.format("%02X", b));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String codecToHex() {
+        return ApduCodec.toHex(fci);
+    }
+
+    // ===== 카드번호 (디코딩 + 유효성 검사) =====
+
+    @Benchmark
+    public boolean legacyCardNumberValid() {
+        return legacyIsValidCardNumber(legacyFormatBcdCardNumber(fci, 8, 8));
+    }
+
+    @Benchmark
+    public boolean codecCardNumberValid() {
+        return ApduCodec.isValidCardNumber(ApduCodec.decodeBcdCardNumber(fci, 8, 8));
+    }
+
+    // ===== 카드번호 (디코딩 + 화면 표시 문자열) =====
+
+    @Benchmark
+    public String legacyFormatCardNumber() {
+        return legacyFormatBcdCardNumber(fci, 8, 8);
+    }
+
+    @Benchmark
+    public String codecFormatCardNumber() {
+        return ApduCodec.formatCardNumber(ApduCodec.decodeBcdCardNumber(fci, 8, 8));
+    }
+
+    // ===== 상태 워드 / 정수 =====
+
+    @Benchmark
+    public int codecStatusAndAmount() {
+        return ApduCodec.isSuccess(transaction) ? ApduCodec.getInt(transaction, 5) : -1;
+    }
+
+    // ===== BCD 날짜 =====
+
+    @Benchmark
+    public String legacyParseBcdDate() {
+        return legacyParseBcdDate(bcdDate, 0);
+    }
+
+    @Benchmark
+    public String codecParseBcdDate() {
+        return ApduCodec.parseBcdDate(bcdDate, 0);
+    }
+
+    // ===== 기존 구현 =====
+
+    private static String legacyFormatBcdCardNumber(byte[] data, int offset, int len) {
+        if (offset + len > data.length) return null;
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < len; i++) {
+            int high = (data[offset + i] >> 4) & 0x0F;
+            int low = data[offset + i] & 0x0F;
+            if (high > 9 || low > 9) return null;
+            sb.append(high).append(low);
+        }
+
+        String raw = sb.toString();
+        if (raw.length() >= 16) {
+            return raw.substring(0, 4) + " " + raw.substring(4, 8) + " " +
+                    raw.substring(8, 12) + " " + raw.substring(12, 16);
+        }
+        return null;
+    }
+
+    private static String legacyParseBcdDate(byte[] data, int offset) {
+        if (offset + 4 > data.length) return "";
+        int yy = ((data[offset] >> 4) & 0x0F) * 10 + (data[offset] & 0x0F);
+        int mm = ((data[offset + 1] >> 4) & 0x0F) * 10 + (data[offset + 1] & 0x0F);
+        int dd = ((data[offset + 2] >> 4) & 0x0F) * 10 + (data[offset + 2] & 0x0F);
+        int hh = ((data[offset + 3] >> 4) & 0x0F) * 10 + (data[offset + 3] & 0x0F);
+        if (mm < 1 || mm > 12 || dd < 1 || dd > 31 || hh > 23) return "";
+        return String.format("%02d/%02d/%02d %02d:00", yy, mm, dd, hh);
+    }
+
+    private static boolean legacyIsValidCardNumber(String cardNum) {
+        if (cardNum == null) return false;
+        String digits = cardNum.replace(" ", "");
+        if (digits.length() < 16) return false;
+        for (char c : digits.toCharArray()) {
+            if (c < '0' || c > '9') return false;
+        }
+        for (char c : digits.toCharArray()) {
+            if (c != '0') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,162 @@
+package com.transitcard.reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * DecodeBenchmark - 카드 응답 디코딩 경로 벤치마크
+ *
+ * 실제 카드 응답과 같은 구조의 버퍼 (데이터 + 90 00) 로 파서의 디코딩 메서드를 호출.
+ * 실행: ./gradlew :benchmark:jmh  (ops/s + gc 프로파일러의 호출당 할당 바이트)
+ */
+@State(Scope.Thread)
+public class DecodeBenchmark {
+
+    // T-money BALANCE_RECORD (SFI 4, 46 bytes) - 사용 1,250원 / 잔액 10,000원
+    private static final String TMONEY_RECORD =
+            "01000001271000000000000004E20000" +
+            "000000001234567820241016083015000000000000000000000000000000" +
+            "9000";
+
+    // EZL BALANCE_RECORD (SFI 4, 26 bytes) - 충전 10,000원 / 잔액 15,000원
+    private static final String EZL_RECORD =
+            "020000013A980000000000002710000000000000000000000000" +
+            "9000";
+
+    // 한페이 / 레일플러스 CARDINFO FCI - offset 8에 BCD 카드번호
+    private static final String FCI_CARD_NUMBER =
+            "6F198407D4100000" + "1010020012345678" + "A5095F2D026B6F9F1101019000";
+
+    // 카드번호가 뒤쪽 5A 태그에만 있는 응답 (TLV 탐색 경로)
+    private static final String TLV_CARD_NUMBER =
+            "7029" + "9F0802000250065449434B4554" + "5F2403301231" + "8E0A00000000000000000000" +
+            "5A081010020012345678" + "9000";
+
+    // 한페이 / 레일플러스 거래 레코드 - 승차, 2024-10-16, 1,500원, 잔액 10,000원
+    private static final String HANPAY_TRANSACTION =
+            "01" + "20241016" + "000005DC" + "00002710" + "00000000000000000000000000" + "9000";
+
+    // KFTC SELECT 응답 (FCI 안의 4F 태그로 EZL / 하이패스 구분)
+    private static final String KFTC_FCI =
+            "6F2C8407A0000004520001A521" + "50094B4654432D43415348" + "870101" +
+            "BF0C10" + "4F07D4100000140001" + "9F0A0400010101" + "9000";
+
+    private static final byte[] EZL_AID = hex("D4100000140001");
+    private static final byte[] HIPASS_AID = hex("A0000002450001");
+
+    private TMoneyParser tmoneyParser;
+    private EZLParser ezlParser;
+    private HanpayParser hanpayParser;
+    private RailplusParser railplusParser;
+
+    // 파서는 상태가 없으므로 레코드 레이아웃 등 세션 값은 여기에 (첫 호출 이후 레이아웃을 아는 상태)
+    private CardSession hanpaySession;
+    private CardSession railplusSession;
+
+    private byte[] tmoneyRecord;
+    private byte[] ezlRecord;
+    private byte[] fciCardNumber;
+    private byte[] tlvCardNumber;
+    private byte[] hanpayTransaction;
+    private byte[] kftcFci;
+    private TlvIndex tlvIndex;
+
+    @Setup
+    public void setup() {
+        tmoneyParser = new TMoneyParser();
+        ezlParser = new EZLParser();
+        hanpayParser = new HanpayParser();
+        railplusParser = new RailplusParser();
+        hanpaySession = new CardSession(null, new byte[0], null, null, new ReadProgress(CardType.HANPAY));
+        railplusSession = new CardSession(null, new byte[0], null, null, new ReadProgress(CardType.RAILPLUS));
+
+        tmoneyRecord = hex(TMONEY_RECORD);
+        ezlRecord = hex(EZL_RECORD);
+        fciCardNumber = hex(FCI_CARD_NUMBER);
+        tlvCardNumber = hex(TLV_CARD_NUMBER);
+        hanpayTransaction = hex(HANPAY_TRANSACTION);
+        kftcFci = hex(KFTC_FCI);
+        tlvIndex = new TlvIndex();
+    }
+
+    // ===== 거래 레코드 =====
+
+    @Benchmark
+    public Transaction tmoneyParseBalanceRecord() {
+        return tmoneyParser.parseBalanceRecord(tmoneyRecord);
+    }
+
+    @Benchmark
+    public Transaction ezlParseBalanceRecord() {
+        return ezlParser.parseBalanceRecord(ezlRecord);
+    }
+
+    @Benchmark
+    public Transaction hanpayParseTransaction() {
+        return hanpayParser.parseTransaction(hanpaySession, hanpayTransaction, hanpayTransaction.length - 2);
+    }
+
+    @Benchmark
+    public Transaction railplusParseTransaction() {
+        return railplusParser.parseTransaction(railplusSession, hanpayTransaction, hanpayTransaction.length - 2);
+    }
+
+    // ===== 카드번호 =====
+
+    @Benchmark
+    public String hanpayFindCardNumberFci() {
+        return hanpayParser.findCardNumber(fciCardNumber, fciCardNumber.length - 2, tlvIndex);
+    }
+
+    @Benchmark
+    public String hanpayFindCardNumberTlv() {
+        return hanpayParser.findCardNumber(tlvCardNumber, tlvCardNumber.length - 2, tlvIndex);
+    }
+
+    @Benchmark
+    public String railplusFindCardNumberTlv() {
+        return railplusParser.findCardNumber(tlvCardNumber, tlvCardNumber.length - 2, tlvIndex);
+    }
+
+    // ===== FCI =====
+
+    @Benchmark
+    public boolean containsAidHit() {
+        tlvIndex.parseResponse(kftcFci);
+        return tlvIndex.containsValue(TlvIndex.TAG_AID, EZL_AID);
+    }
+
+    @Benchmark
+    public boolean containsAidMiss() {
+        tlvIndex.parseResponse(kftcFci);
+        return tlvIndex.containsValue(TlvIndex.TAG_AID, HIPASS_AID);
+    }
+
+    @Benchmark
+    public int parseFci() {
+        tlvIndex.parseResponse(kftcFci);
+        return tlvIndex.size();
+    }
+
+    // ===== 유틸리티 (기존 구현과의 비교는 ApduCodecBenchmark) =====
+
+    @Benchmark
+    public String toHex() {
+        return ApduCodec.toHex(tmoneyRecord);
+    }
+
+    @Benchmark
+    public long decodeBcdCardNumber() {
+        return ApduCodec.decodeBcdCardNumber(fciCardNumber, 8, 8);
+    }
+
+    private static byte[] hex(String s) {
+        byte[] data = new byte[s.length() / 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2), 16);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,14 @@
+package android.content;
+
+/**
+ * 벤치마크용 android.content.Context 대체 (HistoryStrategyCache 컴파일용, 파서에는 전달되지 않음)
+ */
+public abstract class Context {
+    public static final int MODE_PRIVATE = 0;
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+
+    public Context getApplicationContext() {
+        return this;
+    }
+}
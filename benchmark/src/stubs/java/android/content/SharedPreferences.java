@@ -0,0 +1,18 @@
+package android.content;
+
+import java.util.Map;
+
+/**
+ * 벤치마크용 android.content.SharedPreferences 대체 (HistoryStrategyCache 컴파일용)
+ */
+public interface SharedPreferences {
+    Map<String, ?> getAll();
+
+    Editor edit();
+
+    interface Editor {
+        Editor putString(String key, String value);
+
+        void apply();
+    }
+}
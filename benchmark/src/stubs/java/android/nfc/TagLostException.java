@@ -0,0 +1,17 @@
+package android.nfc;
+
+import java.io.IOException;
+
+/**
+ * 벤치마크용 android.nfc.TagLostException 대체
+ */
+public class TagLostException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public TagLostException() {
+    }
+
+    public TagLostException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package android.nfc.tech;
+
+/**
+ * 벤치마크용 android.nfc.tech.IsoDep 대체 (ReadCapabilities.probe 컴파일용)
+ */
+public final class IsoDep {
+    public boolean isExtendedLengthApduSupported() {
+        return false;
+    }
+
+    public int getMaxTransceiveLength() {
+        return 261;
+    }
+}
@@ -0,0 +1,9 @@
+package com.transitcard.reader;
+
+/**
+ * 벤치마크용 BuildConfig 대체 (release 빌드와 같은 값 - APDU 덤프 제거)
+ */
+public final class BuildConfig {
+    public static final boolean DEBUG = false;
+    public static final boolean LOG_APDU_DUMPS = false;
+}